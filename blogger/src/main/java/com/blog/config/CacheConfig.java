@@ -0,0 +1,137 @@
+package com.blog.config;
+
+import com.blog.payload.EncodedBody;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded, TTL based caches in front of PostService.
+// Hit/miss/eviction counts are recorded and show up under /actuator/metrics/cache.gets and cache.evictions.
+// Evictions inside a transaction happen after its commit, and readers fill the caches with get(key, loader)
+// (@Cacheable(sync = true)): a load that started before a write is evicted with it instead of outliving it
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String POSTS = "posts";
+    public static final String POST_PAGES = "postPages";
+    // the same posts and pages as response bodies, serialized and compressed (EncodedResponses), evicted with them
+    public static final String ENCODED_POSTS = "encodedPosts";
+    public static final String ENCODED_POST_PAGES = "encodedPostPages";
+
+    @Value("${app.cache.posts.max-size}")
+    private long postsMaxSize;
+
+    @Value("${app.cache.posts.ttl-seconds}")
+    private long postsTtlSeconds;
+
+    @Value("${app.cache.post-pages.max-size}")
+    private long postPagesMaxSize;
+
+    @Value("${app.cache.post-pages.ttl-seconds}")
+    private long postPagesTtlSeconds;
+
+    @Value("${app.cache.encoded.max-bytes}")
+    private long encodedMaxBytes;
+
+    @Bean
+    public CacheManager cacheManager() {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(Arrays.asList(
+                new TransactionAwareCacheDecorator(buildCache(POSTS, postsMaxSize, postsTtlSeconds)),
+                new TransactionAwareCacheDecorator(buildCache(POST_PAGES, postPagesMaxSize, postPagesTtlSeconds)),
+                new TransactionAwareCacheDecorator(buildEncodedCache(ENCODED_POSTS, postsTtlSeconds)),
+                new TransactionAwareCacheDecorator(buildEncodedCache(ENCODED_POST_PAGES, postPagesTtlSeconds))
+        ));
+        return cacheManager;
+    }
+
+    // bounded by the bytes held rather than the number of entries, pages vary a lot in size
+    private CaffeineCache buildEncodedCache(String name, long ttlSeconds) {
+        return new LoadSafeCaffeineCache(name, Caffeine.newBuilder()
+                .maximumWeight(encodedMaxBytes)
+                .weigher((Object key, Object body) -> ((EncodedBody) body).size())
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build());
+    }
+
+    private CaffeineCache buildCache(String name, long maxSize, long ttlSeconds) {
+        return new LoadSafeCaffeineCache(name, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build());
+    }
+
+    // evict(key) waits for a load of that key (InFlightLoads), clear() does not: it skips entries still being
+    // loaded. A load that overlapped a clear() is dropped once it returns
+    static class LoadSafeCaffeineCache extends CaffeineCache {
+
+        private final AtomicLong clears = new AtomicLong();
+        private final InFlightLoads loads = new InFlightLoads();
+
+        LoadSafeCaffeineCache(String name, Cache<Object, Object> cache) {
+            super(name, cache);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            ValueWrapper cached = get(key);
+            if (cached != null) {
+                return (T) cached.get();
+            }
+            long before = clears.get();
+            T value = loads.load(key, () -> {
+                // stored by a load that finished after the lookup above
+                Object stored = getNativeCache().policy().getIfPresentQuietly(key);
+                if (stored != null) {
+                    return (T) fromStoreValue(stored);
+                }
+                T loaded;
+                try {
+                    loaded = valueLoader.call();
+                } catch (Exception ex) {
+                    throw new ValueRetrievalException(key, valueLoader, ex);
+                }
+                put(key, loaded);
+                return loaded;
+            });
+            if (clears.get() != before) {
+                evict(key);
+            }
+            return value;
+        }
+
+        @Override
+        public void evict(Object key) {
+            loads.await(key);
+            super.evict(key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            loads.await(key);
+            return super.evictIfPresent(key);
+        }
+
+        @Override
+        public void clear() {
+            clears.incrementAndGet();
+            super.clear();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.blog.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+// Cache misses loaded once per key, on the calling thread and with no lock held. Caffeine's get(key, loader)
+// runs the loader inside ConcurrentHashMap.compute, a synchronized block: a virtual thread that waits there for
+// a JDBC connection or a query pins its carrier, and a few of them leave no carrier for the threads that hold
+// the connections to finish and give them back (virtual request threads stalled until connection-timeout)
+public class InFlightLoads {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    // runs loader, which stores what it loads, unless a load of the same key is running: then waits for that
+    // one and returns its value or throws its exception
+    @SuppressWarnings("unchecked")
+    public <T> T load(Object key, Supplier<T> loader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            return (T) join(running);
+        }
+        try {
+            T value = loader.get();
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    // waits for a running load of key, so an eviction made after it is not undone by what it stores
+    public void await(Object key) {
+        CompletableFuture<Object> running = loads.get(key);
+        if (running != null) {
+            running.handle((value, e) -> null).join();
+        }
+    }
+
+    public void awaitAll() {
+        loads.values().forEach(running -> running.handle((value, e) -> null).join());
+    }
+
+    private static Object join(CompletableFuture<Object> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.blog.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+// ddl-auto=update adds columns and indexes but never changes an existing column, so a posts.title created
+// nullable stays nullable. Once, before requests are served: NULL titles (posts saved before PostDto required
+// one) become '' and the column NOT NULL, which the title keyset queries rely on (PostRepository)
+@Component
+@DependsOn("entityManagerFactory")
+public class PostSchemaUpgrade implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostSchemaUpgrade.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostSchemaUpgrade(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!titleIsNullable()) {
+            return;
+        }
+        int untitled = jdbcTemplate.update("update posts set title = '' where title is null");
+        jdbcTemplate.execute("alter table posts modify title varchar(255) not null");
+        logger.info("posts.title made NOT NULL, {} posts without a title got ''", untitled);
+    }
+
+    private boolean titleIsNullable() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            try (ResultSet columns = meta.getColumns(con.getCatalog(), null, "posts", "title")) {
+                return columns.next() && columns.getInt("NULLABLE") == DatabaseMetaData.columnNullable;
+            }
+        }));
+    }
+}
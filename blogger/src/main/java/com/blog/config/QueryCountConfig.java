@@ -0,0 +1,52 @@
+package com.blog.config;
+
+import com.blog.monitoring.QueryCountFilter;
+import com.blog.monitoring.QueryCountListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+// Wraps the application DataSource in a datasource-proxy so every statement is seen by
+// QueryCountListener, and registers QueryCountFilter ahead of the security chain so the
+// user lookups done during authentication are counted too.
+@Configuration
+@ConditionalOnProperty(name = "app.query-count.enabled", havingValue = "true")
+public class QueryCountConfig {
+
+    // static: post processors are created before the rest of this configuration
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(@Value("${app.query-count.slow-query-ms}") long slowQueryMs) {
+        QueryCountListener listener = new QueryCountListener(slowQueryMs);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (beanName.equals("dataSource") && bean instanceof DataSource) {
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName)
+                            .listener(listener)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(MeterRegistry meterRegistry,
+                                                                     @Value("${app.query-count.expose-headers}") boolean exposeHeaders,
+                                                                     @Value("${app.query-count.warn-queries}") int warnQueries,
+                                                                     @Value("${app.query-count.warn-time-ms}") long warnTimeMs) {
+        FilterRegistrationBean<QueryCountFilter> registration =
+                new FilterRegistrationBean<>(new QueryCountFilter(meterRegistry, exposeHeaders, warnQueries, warnTimeMs));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
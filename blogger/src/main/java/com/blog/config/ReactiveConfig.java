@@ -0,0 +1,60 @@
+package com.blog.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+// R2DBC pool for the non-blocking read API (/api/reactive/**), next to the JDBC/JPA one used by everything else.
+// The pool is built here and only a DatabaseClient is exposed: a ConnectionFactory bean would make Boot skip
+// the JDBC DataSource, so the R2DBC auto-configuration is excluded in application.properties
+@Configuration
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveConfig {
+
+    @Value("${app.reactive.r2dbc.url}")
+    private String url;
+
+    @Value("${app.reactive.r2dbc.username}")
+    private String username;
+
+    @Value("${app.reactive.r2dbc.password:}")
+    private String password;
+
+    @Value("${app.reactive.r2dbc.pool.max-size}")
+    private int maxSize;
+
+    @Value("${app.reactive.r2dbc.pool.max-acquire-time-ms}")
+    private long maxAcquireTimeMs;
+
+    private ConnectionPool pool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive")
+                .maxSize(maxSize)
+                .maxAcquireTime(Duration.ofMillis(maxAcquireTimeMs))
+                .build());
+        return DatabaseClient.create(pool);
+    }
+
+    @PreDestroy
+    public void closePool() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+}
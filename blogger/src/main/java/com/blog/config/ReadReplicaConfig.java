@@ -0,0 +1,102 @@
+package com.blog.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Sends @Transactional(readOnly = true) work to read replicas and everything else to spring.datasource.url.
+// The application DataSource is a LazyConnectionDataSourceProxy: it takes no connection until the first
+// statement, by which point the transaction's read-only flag is known, and then asks the primary or
+// ReplicaRoutingDataSource for it. Keeps the bean name "dataSource" so QueryCountConfig still wraps it
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Value("${app.datasource.replicas.urls}")
+    private List<String> urls;
+
+    @Value("${app.datasource.replicas.username}")
+    private String username;
+
+    @Value("${app.datasource.replicas.password:}")
+    private String password;
+
+    @Value("${app.datasource.replicas.maximum-pool-size}")
+    private int maximumPoolSize;
+
+    @Value("${app.datasource.replicas.connection-timeout-ms}")
+    private long connectionTimeoutMs;
+
+    @Value("${app.datasource.replicas.read-your-writes-ms}")
+    private long readYourWritesMs;
+
+    private ReplicaRoutingDataSource replicaDataSource;
+
+    // what Boot would have built from spring.datasource.* and spring.datasource.hikari.*
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                                                      MeterRegistry meterRegistry) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (i + 1));
+            config.setJdbcUrl(urls.get(i).trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setDriverClassName(properties.determineDriverClassName());
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setConnectionTimeout(connectionTimeoutMs);
+            config.setReadOnly(true);
+            // start even with a replica down, the health check picks it up later
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(new HikariDataSource(config));
+        }
+        replicaDataSource = new ReplicaRoutingDataSource(primaryDataSource, pools, readYourWritesMs,
+                (int) Math.max(1, connectionTimeoutMs / 1000), meterRegistry);
+        replicaDataSource.checkHealth();
+        return replicaDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource =
+                new LazyConnectionDataSourceProxy(replicaDataSource.trackingWrites(primaryDataSource));
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.health-check-interval-ms}")
+    public void checkReplicas() {
+        replicaDataSource.checkHealth();
+    }
+
+    @PreDestroy
+    public void closeReplicas() {
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.blog.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Read-only DataSource behind the application one (ReadReplicaConfig.java): hands out replica connections
+// round robin, skipping replicas the health check or a failed connect marked down, and the primary when
+// none is up or the current user committed a write less than read-your-writes-ms ago (replica lag)
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    // user name -> marker, an entry lives read-your-writes-ms after that user's last committed write
+    private final Cache<String, Boolean> recentWriters;
+
+    private final Counter replicaReads;
+    private final Counter failoverReads;
+    private final Counter ownWriteReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicaPools, long readYourWritesMs,
+                                    int validationTimeoutSeconds, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        for (HikariDataSource pool : replicaPools) {
+            replicas.add(new Replica(pool));
+        }
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.recentWriters = readYourWritesMs > 0
+                ? Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(readYourWritesMs)).build()
+                : null;
+        this.replicaReads = readCounter(meterRegistry, "replica");
+        this.failoverReads = readCounter(meterRegistry, "primary-failover");
+        this.ownWriteReads = readCounter(meterRegistry, "primary-own-write");
+        Gauge.builder("db.replicas.healthy", replicas, r -> r.stream().filter(replica -> replica.healthy).count())
+                .description("Read replicas currently taking reads")
+                .register(meterRegistry);
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("db.replica.reads")
+                .description("Read-only transaction connections by where they were routed")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String user = currentUser();
+        if (user != null && recentWriters != null && recentWriters.getIfPresent(user) != null) {
+            ownWriteReads.increment();
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                // down until the next health check sees it answer again
+                markDown(replica, e.getMessage());
+            }
+        }
+        failoverReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Replica connections use the configured credentials");
+    }
+
+    // the primary as the application sees it: a connection taken inside a read-write transaction remembers
+    // the current user once the transaction commits, so their next reads come from the primary
+    public DataSource trackingWrites(DataSource primary) {
+        return new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                recordWriter();
+                return super.getConnection();
+            }
+        };
+    }
+
+    private void recordWriter() {
+        if (recentWriters == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        String user = currentUser();
+        if (user != null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(user, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    // run on app.datasource.replicas.health-check-interval-ms, brings replicas back as well as taking them out
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            String failure = null;
+            try (Connection connection = replica.pool.getConnection()) {
+                if (!connection.isValid(validationTimeoutSeconds)) {
+                    failure = "connection not valid";
+                    replica.pool.evictConnection(connection);
+                }
+            } catch (SQLException e) {
+                failure = e.getMessage();
+            }
+            if (failure != null) {
+                markDown(replica, failure);
+            } else if (!replica.healthy) {
+                replica.healthy = true;
+                logger.info("Replica {} is back, taking reads again", replica.pool.getPoolName());
+            }
+        }
+    }
+
+    public int healthyReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            logger.warn("Replica {} is down, reads fail over: {}", replica.pool.getPoolName(), reason);
+        }
+        // pooled connections to a restarted or replaced server are useless
+        if (replica.pool.getHikariPoolMXBean() != null) {
+            replica.pool.getHikariPoolMXBean().softEvictConnections();
+        }
+    }
+
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static class Replica {
+
+        private final HikariDataSource pool;
+        private volatile boolean healthy = true;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+}
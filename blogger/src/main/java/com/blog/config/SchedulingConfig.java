@@ -0,0 +1,10 @@
+package com.blog.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @Scheduled jobs (CommentCounter), run one at a time on Boot's scheduler thread (spring.task.scheduling.*)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,18 +1,29 @@
 package com.blog.config;
 
 import com.blog.security.CustomUserDetailsService;
+import com.blog.security.JwtAuthenticationFilter;
+import com.blog.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import jakarta.servlet.DispatcherType;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
-import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 //In order to use PreAuthorize Annotationin in your controller layer you have to add this(prePostEnabled) here:
 //@EnableGlobalMethodSecurity(prePostEnabled = true)
@@ -21,10 +32,11 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 
 @Configuration
-@EnableGlobalMethodSecurity(prePostEnabled = true)
+// prePostEnabled is on by default with @EnableMethodSecurity (replaces @EnableGlobalMethodSecurity)
+@EnableMethodSecurity
 @EnableWebSecurity
 // @EnableWebSecurity  help us for web authentication
-public class SecurityConfig extends WebSecurityConfigurerAdapter {
+public class SecurityConfig {
 
     // we have used configure method for --> which URL can be accessed by whom and that we are doing in security config class that extends --> WebSecurityConfigurerAdapter
 
@@ -32,14 +44,24 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     private CustomUserDetailsService userDetailsService;
     // here we have created a bean of userDetailsService
 
+    // BCrypt log rounds (4-31), every +1 doubles the cost of a signin and a signup
+    @Value("${app.security.bcrypt-strength}")
+    private int bcryptStrength;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
 //    @Autowired
 //    private PasswordEncoder passwordEncoder;
     // here we have created a bean again
 
-    @Autowired
     @Bean
-    public AuthenticationManager authenticationManagerBean() throws Exception {
-        return super.authenticationManagerBean();
+    public AuthenticationManager authenticationManagerBean() {
+        // users come from CustomUserDetailsService, passwords are checked with the BCrypt encoder below
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(getEncodedPassword());
+        return new ProviderManager(provider);
         // it will create an object of --> AuthenticationManager --> and inject address into -->
         // AuthenticationManager authenticationManager --> in AuthController.java
         // by writing above code Spring will create the AuthenticationManager bean, and your
@@ -47,23 +69,44 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     }
 
 
-    @Override
-    public void configure(HttpSecurity http) throws Exception {
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         // above one http object is created and below http object is calling .csrf().disable()
 
         http
-                .csrf().disable()
-                .authorizeRequests()
-                //.antMatchers(HttpMethod.GET, "/api/**").authenticated()
-                // if we will give above line and remove below two line then we require to give username and password in the browser after giving URL --> http://localhost:8080/api/posts
-                // If we will remove --> permitAll() --> then we require username and password otherwise no need to give username and password to get the data in the browser
-                .antMatchers(HttpMethod.GET, "/api/**").permitAll()
-                //.antMatchers(HttpMethod.POST, "/api/**").hasRole("ADMIN")
-                .antMatchers(HttpMethod.POST, "/api/auth/**").permitAll()
-                // giving permisstion to the URL in the POSTMAN --> http://localhost:8080/api/auth/signup
-                .anyRequest().authenticated()
-                .and()
-                .httpBasic();
+                .csrf(csrf -> csrf.disable())
+                .authenticationManager(authenticationManagerBean())
+                .authorizeHttpRequests(auth -> auth
+                        // the request was already authorized on its first dispatch (async handlers, error page)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                        //.requestMatchers(HttpMethod.GET, "/api/**").authenticated()
+                        // if we will give above line and remove below two line then we require to give username and password in the browser after giving URL --> http://localhost:8080/api/posts
+                        // If we will remove --> permitAll() --> then we require username and password otherwise no need to give username and password to get the data in the browser
+                        .requestMatchers(HttpMethod.GET, "/api/**").permitAll()
+                        //.requestMatchers(HttpMethod.POST, "/api/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/auth/**").permitAll()
+                        // giving permisstion to the URL in the POSTMAN --> http://localhost:8080/api/auth/signup
+                        // anyone can sign up, so metrics, prometheus and the caches endpoint (whose DELETE
+                        // empties every cache) are for admins; health only needs a login
+                        .requestMatchers(EndpointRequest.toAnyEndpoint().excluding(HealthEndpoint.class)).hasRole("ADMIN")
+                        .anyRequest().authenticated())
+                .httpBasic(Customizer.withDefaults())
+                // Bearer tokens issued by /api/auth/signin are checked before the username/password filters
+                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        return http.build();
+    }
+
+    @Bean
+    public JwtAuthenticationFilter jwtAuthenticationFilter() {
+        return new JwtAuthenticationFilter();
+    }
+
+    // the filter runs inside the security chain only, so Spring Boot must not register it a second time as a servlet filter
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
     }
 
     // details of below override method is in page-26 - pankajsir -6
@@ -95,18 +138,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 //        // apply @PreAuthorize("hasRole('ADMIN')") in Controller layer before PostMapping and DeleteMapping, which means only Admin can delete and create the post
 //    }
 
-    @Override
-    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(userDetailsService)
-                .passwordEncoder(getEncodedPassword());
-
-        // we have to create the bean of --> userDetailsService --> see on top
-        // previosly we were getting the error --> error creating the bean
-    }
-
     @Bean
     public PasswordEncoder getEncodedPassword() {
-        return new BCryptPasswordEncoder();
+        // timed here, around the hashing only (auth.hashing)
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), meterRegistry);
         // it is already creating a bean here and going above --> (getEncodedPassword())
         // and top of the program we have again created a bean so comment that
 
@@ -125,7 +160,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 // we have changed the version from  3.2.0 to  2.7.17
 
 // previously our import was --> jakarta -->  import jakarta.validation.Valid;   But Now
-// our import is --> import javax.validation.Valid;  so change everywhere in the application
+// our import is --> import jakarta.validation.Valid;  so change everywhere in the application
 
 //Here I am just trying to reduce the version and trying to match the compatibility  because this is where open source becomes little dangerous
 //        When the compatibility issues happens to persist there and the problem will be on the developers side
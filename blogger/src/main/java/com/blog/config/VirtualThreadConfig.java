@@ -0,0 +1,32 @@
+package com.blog.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// With spring.threads.virtual.enabled Tomcat starts a virtual thread per request and server.tomcat.threads.max
+// no longer bounds how many reach the database. The application DataSource is put behind
+// ConnectionLimitingDataSource so they queue for a connection in order, each parked off its carrier
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    // static: post processors are created before the rest of this configuration
+    @Bean
+    public static BeanPostProcessor connectionLimitPostProcessor(@Value("${app.datasource.connection-limit}") int limit,
+                                                                 @Value("${spring.datasource.hikari.connection-timeout}") long timeoutMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (beanName.equals("dataSource") && bean instanceof DataSource) {
+                    return new ConnectionLimitingDataSource((DataSource) bean, limit, timeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -3,19 +3,20 @@ package com.blog.controller;
 
 import com.blog.entity.Role;
 import com.blog.entity.User;
+import com.blog.mapper.UserMapper;
 import com.blog.payload.JWTAuthResponse;
 import com.blog.payload.LoginDto;
 import com.blog.payload.SignUpDto;
 import com.blog.repository.RoleRepository;
 import com.blog.repository.UserRepository;
 import com.blog.security.JwtTokenProvider;
+import com.blog.security.PasswordHashingExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -23,6 +24,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 // Auth means --> Authentication Controller
 // restApi signin implementation with MySQL and use Authentication manager --> search in Chat Gpt to get this code
@@ -46,12 +48,24 @@ public class AuthController {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;  // BCrypt work runs here and not on the Tomcat request thread
+
 
     // http://localhost:8080/api/auth/signin
     // at last we have Signin detail
 
+    // signin and signup run on the hashing pool, the request thread is released until the future completes
+    // and if the pool is full the client gets 503 right away
     @PostMapping("/signin")
-    public ResponseEntity<JWTAuthResponse> authenticateUser(@RequestBody LoginDto loginDto){ // here we are getting the details from JASON and in CustomUserDetailsService.java we are getting the details from database
+    public CompletableFuture<ResponseEntity<JWTAuthResponse>> authenticateUser(@RequestBody LoginDto loginDto){
+        return passwordHashingExecutor.submit(() -> signin(loginDto));
+    }
+
+    private ResponseEntity<JWTAuthResponse> signin(LoginDto loginDto){ // here we are getting the details from JASON and in CustomUserDetailsService.java we are getting the details from database
         // <JWTAuthResponse> --> this is your payload
         // here we can use if condition --> see in the last all coding --> but we will not do it here --> spring security takes care all these things --> in a very proper way --> with its built in implementation
 
@@ -87,8 +101,8 @@ public class AuthController {
         // ContextHolder --> this is like a session variable --> whenever login is successful --> we are creating session variable -->
         // and once the value is in session variable -> which means user has logged in --> and if the value in session variable is invalid --> it means the use has not logged in
         // so we are eligible to use the application --> if the value in the session variable is --> success
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        // this line is like --> session.setAttribute
+        // SecurityContextHolder.getContext().setAuthentication(authentication) is not done here: this runs on a pooled
+        // thread (the context would leak to the next signin) and the client authenticates with the token anyway
         // get token from tokenProvider
         String token = tokenProvider.generateToken(authentication);
         // so there is already a method --> generateToken  above present inside the class --> tokenProvider
@@ -121,7 +135,11 @@ public class AuthController {
 
     // http://localhost:8080/api/auth/signup
     @PostMapping("/signup")
-    public ResponseEntity<?> registerUser(@RequestBody SignUpDto signUpDto) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@RequestBody SignUpDto signUpDto) {
+        return passwordHashingExecutor.submit(() -> signup(signUpDto));
+    }
+
+    private ResponseEntity<?> signup(SignUpDto signUpDto) {
         // above signUpDto will get the JSON detail, we have created SignUpDto class
 
         if (userRepository.existsByEmail(signUpDto.getEmail())){
@@ -135,10 +153,7 @@ public class AuthController {
         }
         // if username of JSON and Database will match then if condition will become true
 
-        User user = new User();
-        user.setName(signUpDto.getName());
-        user.setEmail(signUpDto.getEmail());
-        user.setUsername(signUpDto.getUsername());
+        User user = userMapper.toEntity(signUpDto);
         user.setPassword(passwordEncoder.encode(signUpDto.getPassword()));
         // we can see in the database table (user) that password has encoded
         // when we sign up --> you are not only setting up the name, Email, Username and
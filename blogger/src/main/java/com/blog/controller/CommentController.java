@@ -2,7 +2,11 @@ package com.blog.controller;
 
 
 import com.blog.payload.CommentDto;
+import com.blog.payload.CursorPageResponse;
+import com.blog.payload.VersionedBody;
 import com.blog.service.CommentService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,14 +18,25 @@ import java.util.List;
 public class CommentController {
 
     private CommentService commentService;
+    private ConditionalGet conditionalGet;
+    private boolean writeBehind;
 
-    public CommentController(CommentService commentService) {
+    public CommentController(CommentService commentService, ConditionalGet conditionalGet,
+                             @Value("${app.comments.write-behind.enabled}") boolean writeBehind) {
         this.commentService = commentService;
+        this.conditionalGet = conditionalGet;
+        this.writeBehind = writeBehind;
     }
 
     //Handler method
+    // with write-behind on the answer is 202 and the comment without an id: it is queued, not written yet.
+    // 429 when the queue is full
     @PostMapping
     public ResponseEntity<CommentDto> createComment(@RequestParam("postId") long postId, @RequestBody CommentDto commentDto){
+        if (writeBehind) {
+            commentService.queueComment(postId, commentDto);
+            return new ResponseEntity<>(commentDto, HttpStatus.ACCEPTED);
+        }
         CommentDto dto = commentService.createComment(postId, commentDto);
         return new ResponseEntity<>(dto, HttpStatus.CREATED);
     }
@@ -32,15 +47,40 @@ public class CommentController {
         return new ResponseEntity<>("Comment is deleted", HttpStatus.OK);
     }
 
+    //http://localhost:8080/api/comments/1?pageNo=0&pageSize=10
+    // cursor mode: start with ?cursor= and then pass back nextCursor
+    //http://localhost:8080/api/comments/1?cursor=&pageSize=50
+    // ETag covers all comments of the post (see CommentRepository.findVersionStampByPostId) and is read
+    // before the page, in the same transaction: a revalidation that still matches costs one aggregate on the
+    // post_id index, and the ETag sent is the version of the page sent
     @GetMapping("/{postId}")
-    public ResponseEntity<List<CommentDto>> getCommentsByPostId(@PathVariable long postId){
-        List<CommentDto> commentDto = commentService.getCommentsByPostId(postId);
-        return new ResponseEntity<>(commentDto,HttpStatus.OK);
+    public ResponseEntity<?> getCommentsByPostId(
+            @PathVariable long postId,
+            @RequestParam(name = "pageNo", defaultValue = "0", required = false) int pageNo,
+            @RequestParam(name = "pageSize", defaultValue = "10", required = false) int pageSize,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestHeader HttpHeaders requestHeaders
+    ){
+        VersionedBody<?> comments = commentService.getVersionedCommentsByPostId(postId, cursor, pageNo, pageSize,
+                stamp -> conditionalGet.isCurrent(requestHeaders, stamp));
+        if (comments.getBody() == null) {
+            return conditionalGet.notModified(requestHeaders, comments.getStamp());
+        }
+        return conditionalGet.ok(comments.getBody(), comments.getStamp());
     }
 
+    //http://localhost:8080/api/comments?pageNo=0&pageSize=10
     @GetMapping
-    public ResponseEntity<List<CommentDto>> getAllComments(){
-        List<CommentDto> commentDtos = commentService.getAllComments();
+    public ResponseEntity<?> getAllComments(
+            @RequestParam(name = "pageNo", defaultValue = "0", required = false) int pageNo,
+            @RequestParam(name = "pageSize", defaultValue = "10", required = false) int pageSize,
+            @RequestParam(name = "cursor", required = false) String cursor
+    ){
+        if (cursor != null) {
+            CursorPageResponse<CommentDto> page = commentService.getCommentsByCursor(null, cursor, pageSize);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        }
+        List<CommentDto> commentDtos = commentService.getAllComments(pageNo, pageSize);
         return new ResponseEntity<>(commentDtos, HttpStatus.OK);
     }
 }
@@ -0,0 +1,74 @@
+package com.blog.controller;
+
+import com.blog.payload.VersionStamp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ETag / Last-Modified / Cache-Control for the GET endpoints. Controllers look up the VersionStamp first,
+// so a revalidation that still matches is answered with 304 without reading the resource itself
+@Component
+public class ConditionalGet {
+
+    private CacheControl cacheControl;
+
+    public ConditionalGet(@Value("${app.http-cache.max-age-seconds}") long maxAgeSeconds) {
+        // public: these GETs need no login, so shared caches (CDN) may keep them; must-revalidate once stale
+        this.cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic().mustRevalidate();
+    }
+
+    // true when the client sent If-None-Match or If-Modified-Since
+    public boolean isRevalidation(HttpHeaders requestHeaders) {
+        return !requestHeaders.getIfNoneMatch().isEmpty() || requestHeaders.getIfModifiedSince() != -1;
+    }
+
+    // the client sent validators and they match the stamp
+    public boolean isCurrent(HttpHeaders requestHeaders, VersionStamp stamp) {
+        return isRevalidation(requestHeaders) && matches(requestHeaders, stamp);
+    }
+
+    // 304 when the client's copy is still current, null when the full response has to be sent
+    public <T> ResponseEntity<T> notModified(HttpHeaders requestHeaders, VersionStamp stamp) {
+        if (!matches(requestHeaders, stamp)) {
+            return null;
+        }
+        return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), stamp).build();
+    }
+
+    public <T> ResponseEntity<T> ok(T body, VersionStamp stamp) {
+        return okBuilder(stamp).body(body);
+    }
+
+    // 200 with the validators set, for bodies the controller writes itself (EncodedResponses)
+    public ResponseEntity.BodyBuilder okBuilder(VersionStamp stamp) {
+        return withValidators(ResponseEntity.ok(), stamp);
+    }
+
+    private boolean matches(HttpHeaders requestHeaders, VersionStamp stamp) {
+        // If-None-Match takes precedence, If-Modified-Since is only looked at without it. Any encoding of the
+        // version is current: the 304 lets the client keep the one it has
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String etag = "\"" + stamp.getEtag() + "\"";
+            return ifNoneMatch.stream().map(EncodedResponses::withoutContentCoding)
+                    .anyMatch(tag -> tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag));
+        }
+        // HTTP dates have second precision
+        return stamp.getLastModified() != null
+                && stamp.getLastModified().getEpochSecond() * 1000 <= requestHeaders.getIfModifiedSince();
+    }
+
+    private ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, VersionStamp stamp) {
+        builder.eTag(stamp.getEtag()).cacheControl(cacheControl);
+        if (stamp.getLastModified() != null) {
+            builder.lastModified(stamp.getLastModified());
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,163 @@
+package com.blog.controller;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.blog.payload.EncodedBody;
+import com.blog.payload.VersionStamp;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Response bodies that are serialized and compressed once and then sent as the same bytes until evicted
+// (CacheConfig.ENCODED_POSTS / ENCODED_POST_PAGES). Because the work is done once per cached entry, both
+// encodings use their densest settings. Tomcat skips its own gzip when Content-Encoding is already set
+@Component
+public class EncodedResponses {
+
+    private static final Logger logger = LoggerFactory.getLogger(EncodedResponses.class);
+
+    private ObjectMapper objectMapper;
+    // the same threshold Tomcat uses for the responses it compresses
+    private long minCompressBytes;
+    private Encoder.Parameters brotliParameters;
+    private boolean brotli;
+
+    public EncodedResponses(ObjectMapper objectMapper,
+                            @Value("${server.compression.min-response-size}") DataSize minResponseSize,
+                            @Value("${app.http-cache.encoded.brotli-quality}") int brotliQuality) {
+        this.objectMapper = objectMapper;
+        this.minCompressBytes = minResponseSize.toBytes();
+        this.brotliParameters = new Encoder.Parameters().setQuality(brotliQuality);
+        this.brotli = brotliAvailable();
+    }
+
+    private static boolean brotliAvailable() {
+        try {
+            Brotli4jLoader.ensureAvailability();
+            return true;
+        } catch (Throwable e) {
+            // no native library for this platform: gzip only
+            logger.warn("Brotli is not available, cached responses are pre-compressed with gzip only: {}", e.toString());
+            return false;
+        }
+    }
+
+    public EncodedBody encode(Object body, VersionStamp stamp) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            if (json.length < minCompressBytes) {
+                return new EncodedBody(json, null, null, stamp);
+            }
+            return new EncodedBody(json, gzip(json), brotli ? Encoder.compress(json, brotliParameters) : null, stamp);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the cached body, loaded under the cache's lock for that key (CacheConfig): a write's eviction waits for a
+    // load that started before it, so the old body is not put back afterwards
+    public EncodedBody cached(Cache cache, Object key, Callable<EncodedBody> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (Cache.ValueRetrievalException ex) {
+            // e.g. ResourceNotFoundException, handled as if the controller had thrown it
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    // the body in the best encoding the client accepts: br, then gzip, then plain JSON
+    public ResponseEntity<byte[]> body(ResponseEntity.BodyBuilder builder, EncodedBody body, HttpHeaders requestHeaders) {
+        Set<String> accepted = acceptedEncodings(requestHeaders);
+        builder.contentType(MediaType.APPLICATION_JSON).varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (body.getBrotli() != null && accepted.contains("br")) {
+            return encoded(builder, body, "br").body(body.getBrotli());
+        }
+        if (body.getGzip() != null && accepted.contains("gzip")) {
+            return encoded(builder, body, "gzip").body(body.getGzip());
+        }
+        return builder.body(body.getJson());
+    }
+
+    // a strong ETag names one sequence of bytes, so each encoding gets its own: "3-gzip", "3-br" next to "3"
+    private static ResponseEntity.BodyBuilder encoded(ResponseEntity.BodyBuilder builder, EncodedBody body, String coding) {
+        builder.header(HttpHeaders.CONTENT_ENCODING, coding);
+        if (body.getStamp() != null) {
+            builder.eTag(body.getStamp().getEtag() + "-" + coding);
+        }
+        return builder;
+    }
+
+    // the ETag of the resource version a quoted tag names, whichever encoding it was sent with
+    public static String withoutContentCoding(String tag) {
+        for (String suffix : new String[]{"-gzip\"", "-br\""}) {
+            if (tag.endsWith(suffix)) {
+                return tag.substring(0, tag.length() - suffix.length()) + "\"";
+            }
+        }
+        return tag;
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(json);
+        }
+        return out.toByteArray();
+    }
+
+    // codings of Accept-Encoding, without the ones refused with q=0
+    private static Set<String> acceptedEncodings(HttpHeaders requestHeaders) {
+        Set<String> accepted = new HashSet<>();
+        List<String> values = requestHeaders.get(HttpHeaders.ACCEPT_ENCODING);
+        if (values == null) {
+            return accepted;
+        }
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                if (parts.length > 1 && isZeroQuality(parts[1])) {
+                    continue;
+                }
+                accepted.add(parts[0].trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return accepted;
+    }
+
+    private static boolean isZeroQuality(String parameter) {
+        String[] pair = parameter.trim().split("=");
+        if (pair.length != 2 || !pair[0].trim().equalsIgnoreCase("q")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(pair[1].trim()) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
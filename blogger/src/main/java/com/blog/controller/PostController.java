@@ -1,14 +1,39 @@
 package com.blog.controller;
 
+import com.blog.config.CacheConfig;
+import com.blog.exception.BlogAPIException;
+import com.blog.payload.CursorPageResponse;
+import com.blog.payload.EncodedBody;
+import com.blog.payload.PostBatchResult;
 import com.blog.payload.PostDto;
+import com.blog.payload.PostPatchDto;
+import com.blog.payload.PostSearchResult;
+import com.blog.payload.PostSummaryDto;
+import com.blog.payload.VersionStamp;
+import com.blog.service.ExportService;
 import com.blog.service.PostService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.validation.Valid;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
 
 @RestController
@@ -16,10 +41,26 @@ import java.util.List;
 public class PostController {
 
     private PostService postService;
+    private ExportService exportService;
+    private ObjectMapper objectMapper;
+    private ConditionalGet conditionalGet;
+    private EncodedResponses encodedResponses;
+    private Cache encodedPosts;
+    private Cache encodedPostPages;
+    private Duration exportTimeout;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, ExportService exportService, ObjectMapper objectMapper,
+                          ConditionalGet conditionalGet, EncodedResponses encodedResponses, CacheManager cacheManager,
+                          @Value("${app.export.timeout}") Duration exportTimeout) {
 
         this.postService = postService;
+        this.exportService = exportService;
+        this.objectMapper = objectMapper;
+        this.conditionalGet = conditionalGet;
+        this.encodedResponses = encodedResponses;
+        this.encodedPosts = cacheManager.getCache(CacheConfig.ENCODED_POSTS);
+        this.encodedPostPages = cacheManager.getCache(CacheConfig.ENCODED_POST_PAGES);
+        this.exportTimeout = exportTimeout;
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -32,36 +73,197 @@ public class PostController {
         return new ResponseEntity<>(dto, HttpStatus.CREATED);
     }
 
+    // bulk create/update: items with id 0 are created, others update that post. Result per item, in request order
+    //http://localhost:8080/api/posts/batch  body: [{"title":..., "description":..., "content":...}, ...]
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PostBatchResult>> savePostsInBatch(@RequestBody List<PostDto> postDtos) {
+        List<PostBatchResult> results = postService.savePostsInBatch(postDtos.iterator());
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    // same as above for importers streaming one PostDto JSON object per line (application/x-ndjson),
+    // items are read from the request as they are written, not collected first
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<PostBatchResult>> savePostsInBatchNdjson(HttpServletRequest request) throws IOException {
+        // lines are read as trees: MappingIterator cannot bind a "null" line to PostDto, convertValue makes it
+        // a null item that savePostsInBatch reports as INVALID
+        try (MappingIterator<JsonNode> lines = objectMapper.readerFor(JsonNode.class).readValues(request.getInputStream())) {
+            Iterator<PostDto> postDtos = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return lines.hasNext();
+                }
+
+                @Override
+                public PostDto next() {
+                    return objectMapper.convertValue(lines.next(), PostDto.class);
+                }
+            };
+            List<PostBatchResult> results = postService.savePostsInBatch(postDtos);
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        }
+    }
+
+    //http://localhost:8080/api/posts/batch  body: [1, 2, 3]
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<PostBatchResult>> deletePostsInBatch(@RequestBody List<Long> ids) {
+        List<PostBatchResult> results = postService.deletePostsInBatch(ids);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deletePost(@PathVariable long id){
-        postService.deletePost(id);
+        if (!postService.deletePost(id)) {
+            return new ResponseEntity<>("Post deletion scheduled", HttpStatus.ACCEPTED);
+        }
         return new ResponseEntity<>("Post id deleted!!", HttpStatus.OK);
 
     }
 
+    // dump of every post as NDJSON, written while it is read from the database
+    //http://localhost:8080/api/posts/export?includeComments=true
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPosts(
+            @RequestParam(name = "includeComments", defaultValue = "false", required = false) boolean includeComments,
+            HttpServletRequest request
+    ) {
+        // the body is written asynchronously; only this request gets the long timeout, the other async
+        // endpoints (signin/signup, the reactive reads) keep the default
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+        StreamingResponseBody body = out -> exportService.exportPosts(includeComments, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // full-text search over title, description and content, best matches first
+    //http://localhost:8080/api/posts/search?q=spring+boot&pageNo=0&pageSize=10
+    @GetMapping("/search")
+    public ResponseEntity<List<PostSearchResult>> searchPosts(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "pageNo", defaultValue = "0", required = false) int pageNo,
+            @RequestParam(name = "pageSize", defaultValue = "10", required = false) int pageSize
+    ) {
+        List<PostSearchResult> results = postService.searchPosts(query, pageNo, pageSize);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<String> rebuildSearchIndex() {
+        int size = postService.rebuildSearchIndex();
+        return new ResponseEntity<>("Search index rebuilt with " + size + " posts", HttpStatus.OK);
+    }
+
+    // normally done by the nightly job (app.comments.counter.reconcile-cron)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/comment-counts/reconcile")
+    public ResponseEntity<String> reconcileCommentCounts() {
+        int corrected = postService.reconcileCommentCounts();
+        return new ResponseEntity<>("Comment counts of " + corrected + " posts corrected", HttpStatus.OK);
+    }
+
+    //http://localhost:8080/api/posts/1
+    // ETag is the post version. A revalidation (If-None-Match / If-Modified-Since) is answered from the
+    // version lookup alone, the post is only read (or taken from the cache) when it changed.
+    // The body is sent as bytes serialized and compressed once per version (EncodedResponses)
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getPostById(@PathVariable long id, @RequestHeader HttpHeaders requestHeaders){
+        if (conditionalGet.isRevalidation(requestHeaders)) {
+            ResponseEntity<?> notModified = conditionalGet.notModified(requestHeaders, postService.getPostVersion(id));
+            if (notModified != null) {
+                return notModified;
+            }
+        }
+        EncodedBody body = encodedResponses.cached(encodedPosts, id, () -> {
+            PostDto dto = postService.getPostById(id);
+            return encodedResponses.encode(dto, new VersionStamp(Long.toString(dto.getVersion()), dto.getUpdatedAt()));
+        });
+        return encodedResponses.body(conditionalGet.okBuilder(body.getStamp()), body, requestHeaders);
+    }
+
     //http://localhost:8080/api/posts?pageNo=0&pageSize=5&sortBy=title&sortDir=asc
-@GetMapping
-    public ResponseEntity<List<PostDto>> getAllPosts(
+    // cursor mode (no OFFSET, no count query): start with ?cursor= and then pass back nextCursor
+    //http://localhost:8080/api/posts?cursor=&pageSize=5&sortBy=title&sortDir=asc
+    // feed view (id, title, description and comment count, content is not loaded):
+    //http://localhost:8080/api/posts?pageNo=0&pageSize=20&view=summary
+    // the full view is sent pre-serialized and pre-compressed like GET /api/posts/{id}
+    @GetMapping
+    public ResponseEntity<?> getAllPosts(
             @RequestParam(name = "pageNo", defaultValue = "0", required = false) int pageNo,
             @RequestParam(name = "pageSize" , defaultValue = "3" , required = false) int pageSize,
             @RequestParam(name = "sortBy" , defaultValue = "id", required = false) String sortBy,
-            @RequestParam(name = "sortDir", defaultValue = "asc", required = false) String sortDir
-
+            @RequestParam(name = "sortDir", defaultValue = "asc", required = false) String sortDir,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "view", defaultValue = "full", required = false) String view,
+            @RequestHeader HttpHeaders requestHeaders
     ) {
-        List<PostDto> postDtos = postService.getAllPosts(pageNo, pageSize, sortBy, sortDir);
-        return new ResponseEntity<>(postDtos, HttpStatus.OK);
+        if (cursor != null) {
+            CursorPageResponse<PostDto> page = postService.getPostsByCursor(cursor, pageSize, sortBy, sortDir);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        }
+        if (view.equalsIgnoreCase("summary")) {
+            List<PostSummaryDto> summaries = postService.getPostSummaries(pageNo, pageSize, sortBy, sortDir);
+            return new ResponseEntity<>(summaries, HttpStatus.OK);
+        }
+        // same key as the POST_PAGES cache of the DTOs
+        SimpleKey key = new SimpleKey(pageNo, pageSize, sortBy, sortDir);
+        EncodedBody body = encodedResponses.cached(encodedPostPages, key,
+                () -> encodedResponses.encode(postService.getAllPosts(pageNo, pageSize, sortBy, sortDir), null));
+        return encodedResponses.body(ResponseEntity.ok(), body, requestHeaders);
     }
 
     //http://localhost:8080/api/posts?postId=1
 
+    // optional If-Match: "<version>" (the ETag of GET /api/posts/{id}), 412 when the post has changed since
     @PreAuthorize("hasRole('ADMIN')")
     @PutMapping
     public ResponseEntity<PostDto> updatePost(
             @RequestParam long postId,
-            @RequestBody PostDto postDto
+            @RequestBody PostDto postDto,
+            @RequestHeader HttpHeaders requestHeaders
     ){
-        PostDto dto = postService.updatePost(postId, postDto);
-        return new ResponseEntity<>(dto, HttpStatus.OK);
+        PostDto dto = postService.updatePost(postId, postDto, ifMatchVersion(requestHeaders));
+        return ResponseEntity.ok().eTag(Long.toString(dto.getVersion())).body(dto);
+    }
+
+    // partial update, fields left out are kept. One UPDATE ... WHERE id = ? AND version = ?, the post is not read.
+    // If-Match is required (428 without it), 412 when the post has changed since, 204 with the new ETag
+    //http://localhost:8080/api/posts?postId=1  If-Match: "3"  body: {"title": "New title"}
+    @PreAuthorize("hasRole('ADMIN')")
+    @PatchMapping
+    public ResponseEntity<Void> patchPost(
+            @RequestParam long postId,
+            @Valid @RequestBody PostPatchDto patch,
+            @RequestHeader HttpHeaders requestHeaders
+    ){
+        Long expectedVersion = ifMatchVersion(requestHeaders);
+        if (expectedVersion == null) {
+            throw new BlogAPIException(HttpStatus.PRECONDITION_REQUIRED, "PATCH needs an If-Match header with the post's ETag");
+        }
+        long version = postService.patchPost(postId, patch, expectedVersion);
+        return ResponseEntity.noContent().eTag(Long.toString(version)).build();
+    }
+
+    // the version named by If-Match, null without the header or for "*"
+    private Long ifMatchVersion(HttpHeaders requestHeaders) {
+        List<String> ifMatch = requestHeaders.getIfMatch();
+        if (ifMatch.isEmpty() || ifMatch.contains("*")) {
+            return null;
+        }
+        // strong comparison: a weak or foreign tag can never match a post version. The ETag of a compressed
+        // GET ("3-gzip") names the same version
+        String tag = EncodedResponses.withoutContentCoding(ifMatch.get(0));
+        if (ifMatch.size() == 1 && tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // falls through to 412
+            }
+        }
+        throw new BlogAPIException(HttpStatus.PRECONDITION_FAILED, "If-Match does not name a version of this post: " + ifMatch);
     }
 }
@@ -0,0 +1,40 @@
+package com.blog.controller;
+
+import com.blog.payload.CommentDto;
+import com.blog.service.ReactiveCommentService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+// Read-only mirror of GET /api/comments on R2DBC, streams like ReactivePostController
+@RestController
+@RequestMapping("/api/reactive/comments")
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveCommentController {
+
+    private ReactiveCommentService reactiveCommentService;
+
+    public ReactiveCommentController(ReactiveCommentService reactiveCommentService) {
+        this.reactiveCommentService = reactiveCommentService;
+    }
+
+    //http://localhost:8080/api/reactive/comments/1?pageNo=0&pageSize=10
+    @GetMapping(value = "/{postId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<CommentDto> getCommentsByPostId(
+            @PathVariable long postId,
+            @RequestParam(name = "pageNo", defaultValue = "0", required = false) int pageNo,
+            @RequestParam(name = "pageSize", defaultValue = "10", required = false) int pageSize
+    ) {
+        return reactiveCommentService.getCommentsByPostId(postId, pageNo, pageSize);
+    }
+
+    //http://localhost:8080/api/reactive/comments?pageNo=0&pageSize=10
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<CommentDto> getAllComments(
+            @RequestParam(name = "pageNo", defaultValue = "0", required = false) int pageNo,
+            @RequestParam(name = "pageSize", defaultValue = "10", required = false) int pageSize
+    ) {
+        return reactiveCommentService.getAllComments(pageNo, pageSize);
+    }
+}
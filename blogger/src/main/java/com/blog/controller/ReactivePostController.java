@@ -0,0 +1,46 @@
+package com.blog.controller;
+
+import com.blog.payload.PostDto;
+import com.blog.service.ReactivePostService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Read-only mirror of GET /api/posts on R2DBC. The request thread is released while the database works.
+// application/json returns the same list as /api/posts; application/x-ndjson and text/event-stream write each
+// post as soon as it is read, and only pull the next row once the client has taken the previous one
+@RestController
+@RequestMapping("/api/reactive/posts")
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactivePostController {
+
+    private ReactivePostService reactivePostService;
+
+    public ReactivePostController(ReactivePostService reactivePostService) {
+        this.reactivePostService = reactivePostService;
+    }
+
+    //http://localhost:8080/api/reactive/posts/1
+    @GetMapping("/{id}")
+    public Mono<PostDto> getPostById(@PathVariable long id) {
+        return reactivePostService.getPostById(id);
+    }
+
+    //http://localhost:8080/api/reactive/posts?pageNo=0&pageSize=5&sortBy=title&sortDir=asc
+    //curl -H "Accept: application/x-ndjson" "http://localhost:8080/api/reactive/posts?pageSize=1000&view=summary"
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<?> getAllPosts(
+            @RequestParam(name = "pageNo", defaultValue = "0", required = false) int pageNo,
+            @RequestParam(name = "pageSize", defaultValue = "3", required = false) int pageSize,
+            @RequestParam(name = "sortBy", defaultValue = "id", required = false) String sortBy,
+            @RequestParam(name = "sortDir", defaultValue = "asc", required = false) String sortDir,
+            @RequestParam(name = "view", defaultValue = "full", required = false) String view
+    ) {
+        if (view.equalsIgnoreCase("summary")) {
+            return reactivePostService.getPostSummaries(pageNo, pageSize, sortBy, sortDir);
+        }
+        return reactivePostService.getAllPosts(pageNo, pageSize, sortBy, sortDir);
+    }
+}
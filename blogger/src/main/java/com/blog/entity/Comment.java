@@ -2,13 +2,21 @@ package com.blog.entity;
 
 
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
-import javax.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.time.Instant;
 
 @Entity
-@Data
+@Getter
+@Setter
+@ToString
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "comments")
@@ -20,7 +28,37 @@ public class Comment {
     private String email;
     private String name;
 
-    @ManyToOne
+    // bumped by every update, part of the ETag of GET /api/comments/{postId}
+    @Version
+    private long version;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    @UpdateTimestamp
+    private Instant updatedAt;
+
+    // a proxy unless fetched: getPost().getId() comes from post_id without a query
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id")
     private Post post;
+
+    // same as Post.equals: by id only
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Comment)) {
+            return false;
+        }
+        return id != 0 && id == ((Comment) o).getId();
+    }
+
+    @Override
+    public int hashCode() {
+        return Comment.class.hashCode();
+    }
 }
@@ -2,27 +2,85 @@ package com.blog.entity;
 
 
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
-import javax.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name="posts")
-@Data
+// (title, id): keyset pages by title seek and read in index order (PostRepository.findAfterTitleAsc)
+@Table(name="posts", indexes = @Index(name = "idx_posts_title_id", columnList = "title, id"))
+// posts being purged (deleting) are gone for every JPA read, and PostPurger deletes them for good
+@SQLRestriction("deleting = false")
+@Getter
+@Setter
+@ToString
 @AllArgsConstructor
 @NoArgsConstructor
 public class Post {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
+    // NOT NULL so the title keyset queries can compare it as is (PostSchemaUpgrade fixes databases from before)
+    @Column(nullable = false)
     private String title;
-    private String Description;
+    private String description;
     private String content;
 
-    @OneToMany(mappedBy = "post" , cascade = CascadeType.ALL, orphanRemoval = true)
+    // bumped by every update: optimistic locking and the ETag of GET /api/posts/{id}
+    @Version
+    private long version;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    @UpdateTimestamp
+    private Instant updatedAt;
+
+    // maintained by CommentCounter with batched SQL deltas and never written through the entity,
+    // where a stale copy would undo them
+    @ColumnDefault("0")
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false)
+    private long commentCount;
+
+    // set by PostServiceImpl.deletePost for a post too big to delete in the request and cleared by nothing:
+    // PostPurger deletes the row, and picks marked posts up again after a restart. Written with SQL only
+    @ColumnDefault("false")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private boolean deleting;
+
+    // never loaded by the read paths, comments are read as DTO projections (CommentRepository)
+    @ToString.Exclude
+    @OneToMany(mappedBy = "post", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments = new ArrayList<>();
 
+    // identity is the id, not the fields: no walk over comments, and a Hibernate proxy equals the loaded post.
+    // Unsaved posts (id 0) are only equal to themselves
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Post)) {
+            return false;
+        }
+        return id != 0 && id == ((Post) o).getId();
+    }
+
+    // constant so it does not change when the id is assigned on persist
+    @Override
+    public int hashCode() {
+        return Post.class.hashCode();
+    }
 }
@@ -1,15 +1,17 @@
 package com.blog.entity;
 
+import com.blog.security.UserPrincipalCacheListener;
 import lombok.Getter;
 import lombok.Setter;
 
-import javax.persistence.*;
+import jakarta.persistence.*;
 
 
 @Setter
 @Getter
 @Entity
 @Table(name = "roles")
+@EntityListeners(UserPrincipalCacheListener.class)
 public class Role {
 
     @Id
@@ -1,19 +1,29 @@
 package com.blog.entity;
 
 //import javax.management.relation.Role;
-import lombok.Data;
+import com.blog.security.UserPrincipalCacheListener;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
-import javax.persistence.*;
+import jakarta.persistence.*;
 //import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
-@Data
+@Getter
+@Setter
+@ToString
 @Entity
 //@Table(name = "users", uniqueConstraints = {
 //        @UniqueConstraint(columnNames = {"username"}),
 //        @UniqueConstraint(columnNames = {"email"})
 //})
 @Table(name = "users")
+@EntityListeners(UserPrincipalCacheListener.class)
+// login needs the roles with the user (UserRepository.findByUsernameOrEmail)
+@NamedEntityGraph(name = "User.roles", attributeNodes = @NamedAttributeNode("roles"))
 public class User {
 
     @Id
@@ -24,7 +34,15 @@ public class User {
     private String password;
     private String username;
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    // bumped by every update, also when only the roles change (the join table is owned by User),
+    // so UserPrincipalCacheListener sees a role change as an update of the user
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    @ToString.Exclude
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id", referencedColumnName = "id"),
@@ -34,5 +52,21 @@ public class User {
 
     // Constructors, getters, and setters
 
+    // by id like Post and Comment; the id is null until the user is saved
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof User)) {
+            return false;
+        }
+        return id != null && Objects.equals(id, ((User) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return User.class.hashCode();
+    }
 }
 
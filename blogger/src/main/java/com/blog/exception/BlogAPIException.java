@@ -2,7 +2,16 @@ package com.blog.exception;
 
 import org.springframework.http.HttpStatus;
 
-public class BlogAPIException extends Throwable {
-    public BlogAPIException(HttpStatus httpStatus, String invalidJwtSignature) {
+public class BlogAPIException extends RuntimeException {
+
+    private HttpStatus status;
+
+    public BlogAPIException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
     }
 }
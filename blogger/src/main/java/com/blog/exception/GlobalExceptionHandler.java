@@ -2,6 +2,7 @@ package com.blog.exception;
 
 import com.blog.payload.ErrorDetails;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -26,4 +27,24 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
     }
 
+    @ExceptionHandler(BlogAPIException.class)
+    public ResponseEntity<ErrorDetails> blogAPIException(
+            BlogAPIException exception,
+            WebRequest webRequest
+    ) {
+        ErrorDetails errorDetails = new ErrorDetails(new Date(), exception.getMessage(), webRequest.getDescription(false));
+        return new ResponseEntity<>(errorDetails, exception.getStatus());
+    }
+
+    // a concurrent edit won: the UPDATE ... WHERE version = ? matched no row
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorDetails> optimisticLockingFailure(
+            ObjectOptimisticLockingFailureException exception,
+            WebRequest webRequest
+    ) {
+        ErrorDetails errorDetails = new ErrorDetails(new Date(), "The resource was changed by someone else, reload it and retry",
+                webRequest.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.PRECONDITION_FAILED);
+    }
+
 }
@@ -0,0 +1,10 @@
+package com.blog.mapper;
+
+import org.mapstruct.MapperConfig;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+// shared by every mapper: Spring beans, and a DTO or entity field nobody maps fails the build
+@MapperConfig(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface BlogMapperConfig {
+}
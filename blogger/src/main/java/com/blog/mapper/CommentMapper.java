@@ -0,0 +1,38 @@
+package com.blog.mapper;
+
+import com.blog.entity.Comment;
+import com.blog.payload.CommentDto;
+import com.blog.payload.PostCommentDto;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+// Comment <-> CommentDto, implemented by the generated CommentMapperImpl
+@Mapper(config = BlogMapperConfig.class)
+public interface CommentMapper {
+
+    CommentDto toDto(Comment comment);
+
+    // export rows carry the post id, the DTO does not
+    CommentDto toDto(PostCommentDto comment);
+
+    // a comment waiting in the write-behind queue, it has no id yet
+    @Mapping(target = "id", ignore = true)
+    PostCommentDto toQueued(long postId, CommentDto commentDto);
+
+    List<CommentDto> toDtos(List<Comment> comments);
+
+    default List<CommentDto> toDtos(Slice<Comment> comments) {
+        return toDtos(comments.getContent());
+    }
+
+    // the post is set by the caller, the rest comes from the database
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "name")
+    @Mapping(target = "email")
+    @Mapping(target = "body")
+    Comment toEntity(CommentDto commentDto);
+}
@@ -0,0 +1,44 @@
+package com.blog.mapper;
+
+import com.blog.entity.Post;
+import com.blog.payload.PostDto;
+import com.blog.payload.PostExportDto;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+// Post <-> PostDto (and Post -> PostExportDto), implemented by the generated PostMapperImpl (plain getter/setter calls, no reflection)
+@Mapper(config = BlogMapperConfig.class)
+public interface PostMapper {
+
+    PostDto toDto(Post post);
+
+    // generated as a loop into an ArrayList sized to the input
+    List<PostDto> toDtos(List<Post> posts);
+
+    // the comments are added by the export when they were requested
+    @Mapping(target = "comments", ignore = true)
+    PostExportDto toExportDto(Post post);
+
+    // a Page is a Slice too
+    default List<PostDto> toDtos(Slice<Post> posts) {
+        return toDtos(posts.getContent());
+    }
+
+    // only what a client may set: id, version, timestamps, comment count and comments belong to the database
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "title")
+    @Mapping(target = "description")
+    @Mapping(target = "content")
+    Post toEntity(PostDto postDto);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "title")
+    @Mapping(target = "description")
+    @Mapping(target = "content")
+    void update(PostDto postDto, @MappingTarget Post post);
+}
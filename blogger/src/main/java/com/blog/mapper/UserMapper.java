@@ -0,0 +1,18 @@
+package com.blog.mapper;
+
+import com.blog.entity.User;
+import com.blog.payload.SignUpDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+// SignUpDto -> User, implemented by the generated UserMapperImpl
+@Mapper(config = BlogMapperConfig.class)
+public interface UserMapper {
+
+    // the password is encoded and the roles are given by the caller
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "roles", ignore = true)
+    User toEntity(SignUpDto signUpDto);
+}
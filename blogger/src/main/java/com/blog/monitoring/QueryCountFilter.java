@@ -0,0 +1,92 @@
+package com.blog.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Counts the SQL statements (and their time) each HTTP request runs.
+// Always recorded as db.request.queries / db.request.query.time per uri, optionally returned as
+// X-Query-Count / X-Query-Time-Ms headers, and logged when a request goes over the thresholds.
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean exposeHeaders;
+    private final int warnQueries;
+    private final long warnTimeMillis;
+
+    public QueryCountFilter(MeterRegistry meterRegistry, boolean exposeHeaders, int warnQueries, long warnTimeMillis) {
+        this.meterRegistry = meterRegistry;
+        this.exposeHeaders = exposeHeaders;
+        this.warnQueries = warnQueries;
+        this.warnTimeMillis = warnTimeMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryStats stats = QueryStats.start();
+        try {
+            // headers have to go out before the body commits the response, without buffering the body
+            HttpServletResponse target = !exposeHeaders ? response : new OnCommittedResponseWrapper(response) {
+                @Override
+                protected void onResponseCommitted() {
+                    addQueryHeaders(this, stats);
+                }
+            };
+            filterChain.doFilter(request, target);
+            if (exposeHeaders) {
+                addQueryHeaders(response, stats);
+            }
+        } finally {
+            QueryStats.stop();
+            record(request, stats);
+        }
+    }
+
+    private void addQueryHeaders(HttpServletResponse response, QueryStats stats) {
+        if (!response.isCommitted() && !response.containsHeader(QUERY_COUNT_HEADER)) {
+            response.setHeader(QUERY_COUNT_HEADER, String.valueOf(stats.getCount()));
+            response.setHeader(QUERY_TIME_HEADER, String.valueOf(stats.getTimeMillis()));
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        // the route template, not the raw path, so ids do not blow up the number of series
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("db.request.queries")
+                .description("SQL statements run by one HTTP request")
+                .tag("uri", uri)
+                .tag("method", request.getMethod())
+                .register(meterRegistry)
+                .record(stats.getCount());
+        Timer.builder("db.request.query.time")
+                .description("Time spent in SQL statements by one HTTP request")
+                .tag("uri", uri)
+                .tag("method", request.getMethod())
+                .register(meterRegistry)
+                .record(stats.getTimeMillis(), TimeUnit.MILLISECONDS);
+
+        if (stats.getCount() > warnQueries || stats.getTimeMillis() > warnTimeMillis) {
+            logger.warn("{} {} ran {} queries taking {} ms", request.getMethod(), request.getRequestURI(),
+                    stats.getCount(), stats.getTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.blog.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// called by the datasource proxy after every statement (a JDBC batch counts as one round trip)
+public class QueryCountListener implements QueryExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCountListener.class);
+
+    private final long slowQueryMillis;
+
+    public QueryCountListener(long slowQueryMillis) {
+        this.slowQueryMillis = slowQueryMillis;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            stats.record(execInfo.getElapsedTime());
+        }
+        if (execInfo.getElapsedTime() >= slowQueryMillis && !queryInfoList.isEmpty()) {
+            logger.warn("Slow query ({} ms): {}", execInfo.getElapsedTime(), queryInfoList.get(0).getQuery());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.blog.monitoring;
+
+// SQL statements run on the current thread since start(), filled in by QueryCountListener.
+// Only statements on the thread that called start() are counted, work handed to other
+// threads (async handlers, the hashing pool) is not attributed to the request.
+public class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private volatile int count;
+    private volatile long timeMillis;
+
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    void record(long elapsedMillis) {
+        count++;
+        timeMillis += elapsedMillis;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+}
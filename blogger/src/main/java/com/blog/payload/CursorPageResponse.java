@@ -0,0 +1,19 @@
+package com.blog.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+
+    // pass this back as ?cursor= to get the next page, null on the last page
+    private String nextCursor;
+
+    private boolean last;
+}
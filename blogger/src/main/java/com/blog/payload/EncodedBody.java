@@ -0,0 +1,21 @@
+package com.blog.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// A response body serialized once and kept in each encoding it may be sent in (EncodedResponses).
+// gzip and brotli are null when the body is under the compression threshold, brotli also when the
+// native library is not available. stamp holds the ETag / Last-Modified of a single post, null for pages
+@Getter
+@AllArgsConstructor
+public class EncodedBody {
+    private byte[] json;
+    private byte[] gzip;
+    private byte[] brotli;
+    private VersionStamp stamp;
+
+    // cache weight in bytes
+    public int size() {
+        return json.length + (gzip == null ? 0 : gzip.length) + (brotli == null ? 0 : brotli.length);
+    }
+}
@@ -0,0 +1,24 @@
+package com.blog.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// outcome of one item of a batch request, index is the item's position in the request
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostBatchResult {
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+    // hidden now and deleted in the background, like DELETE /api/posts/{id} answering 202
+    public static final String DELETING = "DELETING";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String INVALID = "INVALID";
+
+    private int index;
+    private long id;
+    private String status;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package com.blog.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// a comment together with the id of its post, for queries spanning several posts
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostCommentDto {
+    private long postId;
+    private long id;
+    private String name;
+    private String email;
+    private String body;
+}
@@ -1,12 +1,14 @@
 package com.blog.payload;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import javax.validation.constraints.NotEmpty;
-import javax.validation.constraints.Size;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.time.Instant;
 
 @Data
 @AllArgsConstructor
@@ -26,4 +28,11 @@ public class PostDto {
     @Size(min = 4, message = "Content should be atleast 4 characters")
     private String content;
 
+    // sent as the ETag and Last-Modified headers, not in the body
+    @JsonIgnore
+    private long version;
+
+    @JsonIgnore
+    private Instant updatedAt;
+
 }
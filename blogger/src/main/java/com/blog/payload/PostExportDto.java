@@ -0,0 +1,22 @@
+package com.blog.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Iterator;
+
+// one line of the NDJSON export, comments is left out unless they were requested. They are an Iterator,
+// serialized as an array, so the export can write them as they are read
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PostExportDto {
+    private long id;
+    private String title;
+    private String description;
+    private String content;
+    private Iterator<CommentDto> comments;
+}
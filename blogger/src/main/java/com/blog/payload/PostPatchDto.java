@@ -0,0 +1,23 @@
+package com.blog.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.Size;
+
+// body of PATCH /api/posts, fields left out (null) keep their current value
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostPatchDto {
+
+    @Size(min = 2, message = "title should be atleast 2 characters")
+    private String title;
+
+    @Size(min = 4, message = "Description should be atleast 4 characters")
+    private String description;
+
+    @Size(min = 4, message = "Content should be atleast 4 characters")
+    private String content;
+}
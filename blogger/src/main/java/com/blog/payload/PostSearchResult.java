@@ -0,0 +1,15 @@
+package com.blog.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostSearchResult {
+    private long id;
+    private String title;
+    private String description;
+    private double score;
+}
@@ -0,0 +1,16 @@
+package com.blog.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// list view of a post without the (large) content column
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostSummaryDto {
+    private long id;
+    private String title;
+    private String description;
+    private long commentCount;
+}
@@ -0,0 +1,21 @@
+package com.blog.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// what a conditional GET needs to answer 304 without loading the resource itself
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VersionStamp {
+    // without quotes
+    private String etag;
+    private Instant lastModified;
+
+    public VersionStamp(String etag) {
+        this.etag = etag;
+    }
+}
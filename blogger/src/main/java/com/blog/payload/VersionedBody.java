@@ -0,0 +1,15 @@
+package com.blog.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// a response body and the VersionStamp read with it in one transaction, so the ETag is the body's.
+// body is null when the client's copy was still current and the body was never read
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VersionedBody<T> {
+    private VersionStamp stamp;
+    private T body;
+}
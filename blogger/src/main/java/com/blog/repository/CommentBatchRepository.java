@@ -0,0 +1,46 @@
+package com.blog.repository;
+
+import com.blog.payload.PostCommentDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+// Plain JDBC batch insert of comments for the write-behind ingestion (CommentWriteBehind). With
+// rewriteBatchedStatements=true the list goes out as multi-row INSERTs. The transaction makes the list
+// all or nothing also when the driver splits it (max_allowed_packet) or sends one row per statement:
+// CommentWriteBehind retries a failed list row by row, and committed rows would be inserted twice
+@Repository
+public class CommentBatchRepository {
+
+    private JdbcTemplate jdbcTemplate;
+
+    public CommentBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void insertAll(List<PostCommentDto> comments) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(
+                "insert into comments (body, email, name, post_id, version, created_at, updated_at) values (?, ?, ?, ?, 0, ?, ?)",
+                comments, comments.size(), (ps, comment) -> {
+                    ps.setString(1, comment.getBody());
+                    ps.setString(2, comment.getEmail());
+                    ps.setString(3, comment.getName());
+                    ps.setLong(4, comment.getPostId());
+                    ps.setTimestamp(5, now, utc());
+                    ps.setTimestamp(6, now, utc());
+                });
+    }
+
+    // Hibernate stores Instant columns in UTC, these have to match
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+}
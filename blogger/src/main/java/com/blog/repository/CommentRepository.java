@@ -2,10 +2,63 @@ package com.blog.repository;
 
 import com.blog.entity.Comment;
 import com.blog.payload.CommentDto;
+import com.blog.payload.PostCommentDto;
+import com.blog.payload.VersionStamp;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPostId(long postId);
+
+    // DTO projections: c.post.id is read from the post_id column, so the posts table is never joined
+    // and no Post entity (with its content) is loaded. afterId = 0 means "from the start"
+
+    @Query("select new com.blog.payload.CommentDto(c.id, c.name, c.email, c.body) from Comment c " +
+            "where c.post.id = :postId and c.id > :afterId")
+    Slice<CommentDto> findDtosByPostId(@Param("postId") long postId, @Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select new com.blog.payload.CommentDto(c.id, c.name, c.email, c.body) from Comment c where c.id > :afterId")
+    Slice<CommentDto> findDtos(@Param("afterId") long afterId, Pageable pageable);
+
+    // comments of a chunk of exported posts, grouped by post, read through a cursor like PostRepository.streamAllBy.
+    // Must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.blog.payload.PostCommentDto(c.post.id, c.id, c.name, c.email, c.body) from Comment c " +
+            "where c.post.id in :postIds order by c.post.id, c.id")
+    Stream<PostCommentDto> streamDtosByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    long countByPostId(long postId);
+
+    // count(*) that stops at limit: reads at most limit index entries however many comments the post has
+    @Query(value = "select count(*) from (select 1 from comments where post_id = :postId limit :limit) c", nativeQuery = true)
+    long countByPostIdUpTo(@Param("postId") long postId, @Param("limit") long limit);
+
+    // ETag of a post's comment list, from the post_id index only: an insert or delete moves the count or the
+    // highest id, an update the sum of versions. Deletes leave no date behind, so there is no Last-Modified
+    @Query("select new com.blog.payload.VersionStamp(concat(cast(count(c) as String), '-', " +
+            "cast(coalesce(max(c.id), 0) as String), '-', cast(coalesce(sum(c.version), 0) as String))) " +
+            "from Comment c where c.post.id = :postId")
+    VersionStamp findVersionStampByPostId(@Param("postId") long postId);
+
+    // set based deletes: one statement for all comments of a post, no entity is loaded
+    @Modifying
+    @Query("delete from Comment c where c.post.id = :postId")
+    int deleteAllByPostId(@Param("postId") long postId);
+
+    // at most limit rows per call, so a background purge can work through a huge post in short transactions
+    @Modifying
+    @Query(value = "delete from comments where post_id = :postId limit :limit", nativeQuery = true)
+    int deleteChunkByPostId(@Param("postId") long postId, @Param("limit") int limit);
 }
@@ -0,0 +1,87 @@
+package com.blog.repository;
+
+import com.blog.payload.PostDto;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+// Plain JDBC batches for bulk post writes. Hibernate cannot batch inserts into an IDENTITY
+// column, this can: with rewriteBatchedStatements=true MySQL gets one multi-row INSERT per chunk.
+// Callers must run inside a transaction.
+@Repository
+public class PostBatchRepository {
+
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public PostBatchRepository(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    // inserts the posts and sets the generated id on each dto
+    public void insertAll(List<PostDto> posts) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(
+                    "insert into posts (title, description, content, version, created_at, updated_at) values (?, ?, ?, 0, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                Timestamp now = Timestamp.from(Instant.now());
+                for (PostDto post : posts) {
+                    ps.setString(1, post.getTitle());
+                    ps.setString(2, post.getDescription());
+                    ps.setString(3, post.getContent());
+                    ps.setTimestamp(4, now, utc());
+                    ps.setTimestamp(5, now, utc());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next()) {
+                        posts.get(i++).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    // returns the update count per post, 0 means there was no post with that id.
+    // Bumps the version like a JPA update does, so ETags and optimistic locks see the change
+    public int[] updateAll(List<PostDto> posts) {
+        Timestamp now = Timestamp.from(Instant.now());
+        return jdbcTemplate.batchUpdate(
+                "update posts set title = ?, description = ?, content = ?, version = version + 1, updated_at = ? where id = ?",
+                posts, posts.size(), (ps, post) -> {
+                    ps.setString(1, post.getTitle());
+                    ps.setString(2, post.getDescription());
+                    ps.setString(3, post.getContent());
+                    ps.setTimestamp(4, now, utc());
+                    ps.setLong(5, post.getId());
+                })[0];
+    }
+
+    // Hibernate stores Instant columns in UTC, these have to match
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+
+    // deletes the comments of all posts with one statement, then the posts; returns the count per id.
+    // Only for posts under app.posts.delete.purge-threshold comments, PostPurger deletes the others
+    public int[] deleteAll(List<Long> ids) {
+        namedJdbcTemplate.update("delete from comments where post_id in (:ids)", new MapSqlParameterSource("ids", ids));
+        return jdbcTemplate.batchUpdate("delete from posts where id = ?", ids, ids.size(),
+                (ps, id) -> ps.setLong(1, id))[0];
+    }
+}
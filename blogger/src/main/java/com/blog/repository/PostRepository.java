@@ -1,8 +1,98 @@
 package com.blog.repository;
 
 import com.blog.entity.Post;
+import com.blog.payload.PostSummaryDto;
+import com.blog.payload.VersionStamp;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
-}
 
+    // bulk delete, skips loading the post and cascading over Post.comments; returns 0 when there was no such post.
+    // SQL so it also deletes a post marked deleting, which JPQL no longer sees (Post.deleting)
+    @Modifying
+    @Query(value = "delete from posts where id = :id", nativeQuery = true)
+    int deletePostById(@Param("id") long id);
+
+    // hides the post from reads until PostPurger has deleted it; returns 0 when there is no such post
+    @Modifying
+    @Query(value = "update posts set deleting = true where id = :id", nativeQuery = true)
+    int markDeleting(@Param("id") long id);
+
+    // purges to resume at startup
+    @Query(value = "select id from posts where deleting = true", nativeQuery = true)
+    List<Long> findDeletingIds();
+
+    // partial update guarded by the version, without reading the post first; null parameters keep the column.
+    // 0 means there is no such post or it has moved past that version
+    @Modifying
+    @Query("update Post p set p.title = coalesce(:title, p.title), p.description = coalesce(:description, p.description), " +
+            "p.content = coalesce(:content, p.content), p.version = p.version + 1, p.updatedAt = :now " +
+            "where p.id = :id and p.version = :version")
+    int patchPost(@Param("id") long id, @Param("version") long version, @Param("title") String title,
+                  @Param("description") String description, @Param("content") String content, @Param("now") Instant now);
+
+    // findById runs in a read-only transaction, which ReadReplicaConfig sends to a replica. This one has no
+    // transaction of its own and reads the primary: getPostById caches the post for app.cache.posts.ttl-seconds,
+    // a copy read from a lagging replica just after an update would stay stale that long
+    Optional<Post> findPostById(long id);
+
+    // same as findAll(pageable) on the primary, for getAllPosts: its pages are cached for app.cache.post-pages.ttl-seconds
+    Page<Post> findPageBy(Pageable pageable);
+
+    // version and last change only, for conditional GETs that can be answered without loading the post
+    @Query("select new com.blog.payload.VersionStamp(cast(p.version as String), p.updatedAt) from Post p where p.id = :id")
+    Optional<VersionStamp> findVersionStampById(@Param("id") long id);
+
+    // only id, title, description and the comment count are selected, the content column is never read
+    @Query("select new com.blog.payload.PostSummaryDto(p.id, p.title, p.description, p.commentCount) from Post p")
+    Slice<PostSummaryDto> findSummaries(Pageable pageable);
+
+    // keyset (cursor) pagination: Slice means no count(*) query, and the WHERE on the
+    // last seen key lets the index seek instead of scanning past an OFFSET
+
+    Slice<Post> findAllBy(Pageable pageable);
+
+    Slice<Post> findByIdGreaterThan(long id, Pageable pageable);
+
+    Slice<Post> findByIdLessThan(long id, Pageable pageable);
+
+    // served by the (title, id) index (Post): the ORDER BY is the index order, and the leading title >= / <=
+    // bounds a range of it to seek to, the rest of the predicate only steps past the cursor's own title.
+    // These queries order by themselves, the Pageable only carries the page size
+    @Query("select p from Post p order by p.title asc, p.id asc")
+    Slice<Post> findByTitleAsc(Pageable pageable);
+
+    @Query("select p from Post p order by p.title desc, p.id desc")
+    Slice<Post> findByTitleDesc(Pageable pageable);
+
+    @Query("select p from Post p where p.title >= :title and (p.title > :title or p.id > :id) " +
+            "order by p.title asc, p.id asc")
+    Slice<Post> findAfterTitleAsc(@Param("title") String title, @Param("id") long id, Pageable pageable);
+
+    @Query("select p from Post p where p.title <= :title and (p.title < :title or p.id < :id) " +
+            "order by p.title desc, p.id desc")
+    Slice<Post> findAfterTitleDesc(@Param("title") String title, @Param("id") long id, Pageable pageable);
+
+    // forward-only read of every post for the export. With a fetch size (and useCursorFetch=true on MySQL)
+    // rows come from a server side cursor, 1000 at a time, instead of the whole table at once.
+    // Must be consumed inside a transaction and closed; detach the posts as they are processed.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select p from Post p order by p.id")
+    Stream<Post> streamAllBy();
+}
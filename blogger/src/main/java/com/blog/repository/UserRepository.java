@@ -1,12 +1,15 @@
 package com.blog.repository;
 
 import com.blog.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+    // User.roles is lazy, login (CustomUserDetailsService) reads them in the same query
+    @EntityGraph("User.roles")
     Optional<User> findByUsernameOrEmail(String username, String email);
     Optional<User> findByUsername(String username);
 
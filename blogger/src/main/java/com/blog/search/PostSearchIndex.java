@@ -0,0 +1,307 @@
+package com.blog.search;
+
+import com.blog.entity.Post;
+import com.blog.payload.PostSearchResult;
+import com.blog.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// In-memory inverted index over post title, description and content.
+// Kept in sync by PostServiceImpl and rebuilt from PostRepository at startup (or on demand).
+// Scoring is tf-idf with title matches weighted above description and content matches.
+@Component
+public class PostSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    static final int TITLE = 0;
+    static final int DESCRIPTION = 1;
+    static final int CONTENT = 2;
+    private static final float[] FIELD_WEIGHTS = {3f, 2f, 1f};
+
+    private final PostRepository postRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean rebuildOnStartup;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexData data = new IndexData();
+    // changes made while a rebuild is running, replayed on the new index before it is swapped in
+    private List<Consumer<IndexData>> pendingDuringRebuild;
+
+    public PostSearchIndex(PostRepository postRepository, EntityManager entityManager,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.search.rebuild-on-startup}") boolean rebuildOnStartup) {
+        this.postRepository = postRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    // adds or replaces a post; deferred to after commit when called inside a transaction
+    public void index(long id, String title, String description, String content) {
+        apply(d -> d.put(id, title, description, content));
+    }
+
+    // replaces only the non-null fields of a post that is already indexed, for partial updates
+    public void update(long id, String title, String description, String content) {
+        apply(d -> d.update(id, title, description, content));
+    }
+
+    public void remove(long id) {
+        apply(d -> d.remove(id));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return data.docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<PostSearchResult> search(String query, int pageNo, int pageSize) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        // in long: (pageNo + 1) * pageSize overflows int for a large pageNo
+        long wanted = (pageNo + 1L) * pageSize;
+        if (terms.isEmpty() || wanted <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            int docCount = data.docs.size();
+            for (String term : terms) {
+                Map<Long, Float> postings = data.postings.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                double idf = Math.log(1.0 + (double) docCount / postings.size());
+                for (Map.Entry<Long, Float> posting : postings.entrySet()) {
+                    double tf = 1.0 + Math.log(posting.getValue());
+                    scores.merge(posting.getKey(), tf * idf, Double::sum);
+                }
+            }
+
+            // keep only the best (pageNo + 1) * pageSize hits instead of sorting every match
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>((int) Math.min(wanted, scores.size()) + 1, (a, b) -> {
+                int c = Double.compare(a.getValue(), b.getValue());
+                return c != 0 ? c : Long.compare(b.getKey(), a.getKey());
+            });
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+            ranked.sort(top.comparator().reversed());
+
+            List<PostSearchResult> results = new ArrayList<>(pageSize);
+            for (long i = (long) pageNo * pageSize; i < ranked.size(); i++) {
+                Map.Entry<Long, Double> hit = ranked.get((int) i);
+                Doc doc = data.docs.get(hit.getKey());
+                results.add(new PostSearchResult(hit.getKey(), doc.title, doc.description, hit.getValue()));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // reads every post from the database into a fresh index and swaps it in, searches keep working meanwhile
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                return;
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndexData fresh = new IndexData();
+        boolean built = false;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Post> posts = postRepository.streamAllBy()) {
+                    posts.forEach(post -> {
+                        fresh.put(post.getId(), post.getTitle(), post.getDescription(), post.getContent());
+                        entityManager.detach(post);
+                    });
+                }
+            });
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                List<Consumer<IndexData>> pending = pendingDuringRebuild;
+                pendingDuringRebuild = null;
+                if (built) {
+                    pending.forEach(change -> change.accept(fresh));
+                    data = fresh;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        logger.info("Search index rebuilt with {} posts", fresh.docs.size());
+    }
+
+    private void apply(Consumer<IndexData> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // only visible in search once the write is committed, and never if it rolls back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyNow(change);
+                }
+            });
+        } else {
+            applyNow(change);
+        }
+    }
+
+    private void applyNow(Consumer<IndexData> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(data);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start > 1) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static class Doc {
+        String title;
+        String description;
+        // term -> weighted frequency per field (TITLE, DESCRIPTION, CONTENT), kept to undo the postings
+        // of this post on update/remove and to re-index a single field
+        List<Map<String, Float>> fieldTerms;
+    }
+
+    private static class IndexData {
+        final Map<Long, Doc> docs = new HashMap<>();
+        final Map<String, Map<Long, Float>> postings = new HashMap<>();
+
+        void put(long id, String title, String description, String content) {
+            remove(id);
+            Doc doc = new Doc();
+            doc.title = title;
+            doc.description = description;
+            doc.fieldTerms = new ArrayList<>(List.of(fieldTerms(TITLE, title), fieldTerms(DESCRIPTION, description),
+                    fieldTerms(CONTENT, content)));
+            add(id, doc);
+        }
+
+        void update(long id, String title, String description, String content) {
+            Doc doc = docs.get(id);
+            if (doc == null) {
+                return;
+            }
+            remove(id);
+            String[] fields = {title, description, content};
+            for (int field = TITLE; field <= CONTENT; field++) {
+                if (fields[field] != null) {
+                    doc.fieldTerms.set(field, fieldTerms(field, fields[field]));
+                }
+            }
+            if (title != null) {
+                doc.title = title;
+            }
+            if (description != null) {
+                doc.description = description;
+            }
+            add(id, doc);
+        }
+
+        void remove(long id) {
+            Doc doc = docs.remove(id);
+            if (doc == null) {
+                return;
+            }
+            for (Map<String, Float> terms : doc.fieldTerms) {
+                for (String term : terms.keySet()) {
+                    Map<Long, Float> termPostings = postings.get(term);
+                    if (termPostings != null) {
+                        termPostings.remove(id);
+                        if (termPostings.isEmpty()) {
+                            postings.remove(term);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void add(long id, Doc doc) {
+            for (Map<String, Float> terms : doc.fieldTerms) {
+                for (Map.Entry<String, Float> term : terms.entrySet()) {
+                    postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).merge(id, term.getValue(), Float::sum);
+                }
+            }
+            docs.put(id, doc);
+        }
+
+        private static Map<String, Float> fieldTerms(int field, String text) {
+            Map<String, Float> terms = new HashMap<>();
+            for (String token : tokenize(text)) {
+                terms.merge(token, FIELD_WEIGHTS[field], Float::sum);
+            }
+            return terms;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.blog.security;
 import com.blog.entity.Role;
 import com.blog.entity.User;
 import com.blog.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,14 +20,23 @@ import java.util.stream.Collectors;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private UserRepository userRepository;
+    private Timer loadTimer;
 
-    public CustomUserDetailsService(UserRepository userRepository){
+    public CustomUserDetailsService(UserRepository userRepository, MeterRegistry meterRegistry){
         this.userRepository = userRepository;
+        this.loadTimer = Timer.builder("auth.user.load")
+                .description("Lookup of a user and its roles for authentication")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     // SEARCH THE RECORD IN DATABASE BASED ON EMAIL OR USERNAME
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
+        return loadTimer.record(() -> loadUser(usernameOrEmail));
+    }
+
+    private UserDetails loadUser(String usernameOrEmail) {
         User user = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
                 .orElseThrow(() ->
                         new UsernameNotFoundException("User not found with username or email:" +usernameOrEmail));
@@ -1,28 +1,39 @@
 package com.blog.security;
 
 import com.blog.exception.BlogAPIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import javax.servlet.FilterChain;
-import javax.servlet.ServletException;
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     @Autowired
     private JwtTokenProvider tokenProvider;
 
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private JwtAuthenticationEntryPoint authenticationEntryPoint;
+
     // So what is doFilter method doing here?
     // For every incoming request it extracts the Jwt Token and if it is a valid Token 
     // It processes the request and sends the response back
@@ -42,14 +53,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // tokenProvider.validateToken(token) --> we ar calling validateToken method in
             // JwtTokenProvider.java and this (tokenProvider) is the object of JwtTokenProvider class
             // Now when we validate the Token means this condition happens to be true:
-            if (StringUtils.hasText(token) && tokenProvider.validateToken(token)) {
+            if (StringUtils.hasText(token)) {
                 // then tokenProvider gets username from the Token:
                 // Extract (get) user id from JWT Token
-                String username = tokenProvider.getUsernameFromJWT(token);
+                // verifyToken parses and checks the signature once (validating, then reading the username did it twice)
+                String username = tokenProvider.verifyToken(token).getSubject();
                 // And then it will call the method  loadByUsername:
                 // load user associated with token
                 // here we have called loadBy username method
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+                // only on a cache miss, otherwise the principal comes from memory without a DB round trip
+                UserDetails userDetails = principalCache.get(username, customUserDetailsService::loadUserByUsername);
 
                 // What loadByUsername do  it takes the username  goes to the database  and based
                 // on the username  it gets the details  so that detail is present in this  now:
@@ -83,7 +96,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             }
         } catch (BlogAPIException e) {
-            throw new RuntimeException(e);
+            // bad or expired token: carry on unauthenticated, protected URLs will answer 401/403
+            logger.debug("Rejected JWT: {}", e.getMessage());
+            SecurityContextHolder.clearContext();
+        } catch (UsernameNotFoundException e) {
+            // valid token of a user that has been deleted since: 401, not a 500 from the filter chain
+            SecurityContextHolder.clearContext();
+            authenticationEntryPoint.commence(request, response, e);
+            return;
         }
 
 
@@ -93,7 +113,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     // Bearer<accessToken>
     // this method (getJwtFromRequest) based on the request  it extracts the Token out of it
 
-    private String getJwtFromRequest(HttpServletRequest request) {
+    String getJwtFromRequest(HttpServletRequest request) {
         // this method based on the request  it extracts the Token out of it
         //so from the request I am getting the Token:
         //getJwtFromRequest(request);
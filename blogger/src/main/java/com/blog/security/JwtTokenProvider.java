@@ -1,7 +1,13 @@
 package com.blog.security;
 
 import com.blog.exception.BlogAPIException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,7 +15,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
@@ -22,6 +34,69 @@ public class JwtTokenProvider {
     @Value("${app.jwt-ExpirationMs-milliseconds}")
     private int jwtExpirationlnMs;
 
+    @Value("${app.jwt.verified-cache.enabled}")
+    private boolean verifiedCacheEnabled;
+
+    @Value("${app.jwt.verified-cache.max-size}")
+    private long verifiedCacheMaxSize;
+
+    // SHA-256 of recently verified tokens -> subject and expiry, so a client that keeps
+    // sending the same token skips the HS512 check until the token expires
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private final Timer validTokenTimer;
+    private final Timer invalidTokenTimer;
+    private final Counter verifiedCacheHits;
+    private final Counter verifiedCacheMisses;
+
+    public JwtTokenProvider(MeterRegistry meterRegistry) {
+        this.validTokenTimer = validateTimer("valid", meterRegistry);
+        this.invalidTokenTimer = validateTimer("invalid", meterRegistry);
+        this.verifiedCacheHits = verifiedCacheCounter("hit", meterRegistry);
+        this.verifiedCacheMisses = verifiedCacheCounter("miss", meterRegistry);
+    }
+
+    private static Timer validateTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("auth.jwt.validate")
+                .description("Signature check and parse of a JWT")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter verifiedCacheCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("auth.jwt.verified-cache")
+                .description("Lookups of already verified tokens")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (verifiedCacheEnabled) {
+            verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(verifiedCacheMaxSize)
+                    .expireAfter(new Expiry<String, VerifiedToken>() {
+                        @Override
+                        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                            long remainingMs = value.getExpiresAtMillis() - System.currentTimeMillis();
+                            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+
+                        @Override
+                        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .build();
+        }
+    }
+
     // generate token
     public String generateToken(Authentication authentication) {
         // generateToken method is called from AuthController Signin feature
@@ -40,15 +115,34 @@ public class JwtTokenProvider {
         return token;
     }
 
-    // get username from the token
-    public String getUsernameFromJWT(String token) {
+    // validate the token and read its subject with a single parse
+    public VerifiedToken verifyToken(String token) throws BlogAPIException {
+        if (verifiedTokens == null) {
+            return toVerifiedToken(parseClaims(token));
+        }
+        String key = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            verifiedCacheHits.increment();
+            return cached;
+        }
+        verifiedCacheMisses.increment();
+        VerifiedToken verified = toVerifiedToken(parseClaims(token));
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
 
-        Claims claims = Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        return new VerifiedToken(claims.getSubject(), claims.getExpiration().getTime());
+    }
 
-        return claims.getSubject();
+    private String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
 
@@ -60,9 +154,18 @@ public class JwtTokenProvider {
         // Because to validate the Token  only when secret key is applied  I can extract the
         // information from the Token  that’s why we are again applying the secret key here:
         //
+        parseClaims(token);
+        return true;
+    }
+
+    // the one place where a token is parsed and its signature checked
+    public Claims parseClaims(String token) throws BlogAPIException {
+        long start = System.nanoTime();
+        boolean valid = false;
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token);
-            return true;
+            Claims claims = Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody();
+            valid = true;
+            return claims;
         } catch (SignatureException ex) {
             // Handle any exceptions
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid JWT signature");
@@ -80,6 +183,8 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException ex) {
             // Handle any exceptions
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "JWT claims string is empty.");
+        } finally {
+            (valid ? validTokenTimer : invalidTokenTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
 
     }
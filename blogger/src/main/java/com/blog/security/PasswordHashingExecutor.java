@@ -0,0 +1,65 @@
+package com.blog.security;
+
+import com.blog.exception.BlogAPIException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// BCrypt is deliberately slow, so signin/signup hashing runs on its own small pool instead of
+// Tomcat request threads. When the pool and its queue are full the request fails fast with 503,
+// which keeps a login storm from starving the cheap GET endpoints.
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordHashingExecutor(@Value("${app.security.hashing.threads}") int threads,
+                                   @Value("${app.security.hashing.queue-capacity}") int queueCapacity,
+                                   MeterRegistry meterRegistry) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("auth.hashing.queue", executor, e -> e.getQueue().size())
+                .description("Signin/signup requests waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    // the hashing itself is timed by TimedPasswordEncoder
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.get());
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            throw new BlogAPIException(HttpStatus.SERVICE_UNAVAILABLE, "Too many authentication requests, please retry later");
+        }
+        return future;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,67 @@
+package com.blog.security;
+
+import com.blog.config.InFlightLoads;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+// Principals of JWT authenticated requests, keyed by the token subject (the user's email).
+// Saves the findByUsernameOrEmail + user_roles query on every request that carries a token.
+// Entries are dropped when a user or role is updated or deleted through JPA (UserPrincipalCacheListener).
+// Changes made outside JPA (bulk queries, SQL run on the database) are only seen after the TTL.
+@Component
+public class UserPrincipalCache {
+
+    private final Cache<String, UserDetails> cache;
+    private final InFlightLoads loads = new InFlightLoads();
+
+    public UserPrincipalCache(@Value("${app.security.principal-cache.max-size}") long maxSize,
+                              @Value("${app.security.principal-cache.ttl-seconds}") long ttlSeconds,
+                              MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    public UserDetails get(String subject, Function<String, UserDetails> loader) {
+        UserDetails cached = cache.getIfPresent(subject);
+        if (cached != null) {
+            return cached;
+        }
+        // loaded outside Caffeine's compute (InFlightLoads), and evictions wait for a load that is running
+        return loads.load(subject, () -> {
+            UserDetails stored = cache.policy().getIfPresentQuietly(subject);
+            if (stored != null) {
+                return stored;
+            }
+            UserDetails userDetails = loader.apply(subject);
+            // the password hash is not needed once the token is verified, so it is not kept in memory
+            UserDetails principal = new User(userDetails.getUsername(), "", userDetails.getAuthorities());
+            cache.put(subject, principal);
+            return principal;
+        });
+    }
+
+    public void evict(String subject) {
+        if (subject != null) {
+            loads.await(subject);
+            cache.invalidate(subject);
+        }
+    }
+
+    public void evictAll() {
+        loads.awaitAll();
+        cache.invalidateAll();
+    }
+}
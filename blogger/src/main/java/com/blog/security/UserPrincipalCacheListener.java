@@ -0,0 +1,45 @@
+package com.blog.security;
+
+import com.blog.entity.User;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+// JPA entity listener on User and Role. A user that is updated (User has a @Version, so a change of only
+// its roles is an update too) or deleted is evicted; a renamed or deleted role may be held by any
+// principal, so all of them are. Bulk JPQL/SQL updates skip entity listeners and have to call
+// UserPrincipalCache.evict/evictAll themselves
+@Component
+public class UserPrincipalCacheListener {
+
+    private final UserPrincipalCache principalCache;
+
+    public UserPrincipalCacheListener(UserPrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(Object entity) {
+        Runnable eviction = entity instanceof User user
+                ? () -> {
+                    principalCache.evict(user.getEmail());
+                    principalCache.evict(user.getUsername());
+                }
+                : principalCache::evictAll;
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // this runs at flush, before the commit: a request loading the principal in between still reads
+            // the old row and caches it again, so the entry is dropped once more when the change is visible
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
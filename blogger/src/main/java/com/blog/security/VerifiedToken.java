@@ -0,0 +1,25 @@
+package com.blog.security;
+
+// what is left of a JWT once its signature and expiry were checked
+public class VerifiedToken {
+
+    private final String subject;
+    private final long expiresAtMillis;
+
+    public VerifiedToken(String subject, long expiresAtMillis) {
+        this.subject = subject;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
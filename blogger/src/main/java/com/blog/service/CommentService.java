@@ -1,16 +1,32 @@
 package com.blog.service;
 
 import com.blog.payload.CommentDto;
+import com.blog.payload.CursorPageResponse;
+import com.blog.payload.VersionStamp;
+import com.blog.payload.VersionedBody;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface CommentService {
     public CommentDto createComment(long postId, CommentDto commentDto);
 
+    // write-behind: queues the comment and returns, it is inserted shortly after (CommentWriteBehind)
+    void queueComment(long postId, CommentDto commentDto);
+
     void deleteComment(long commentId);
 
-    List<CommentDto> getCommentsByPostId(long postid);
+    List<CommentDto> getCommentsByPostId(long postid, int pageNo, int pageSize);
+
+    // a page of the post's comments (cursor mode when cursor is not null) and their version, which changes
+    // whenever a comment of the post is added, updated or deleted. Both come from one read-only transaction,
+    // so from the same replica. No page is read when unchanged accepts the version
+    VersionedBody<?> getVersionedCommentsByPostId(long postId, String cursor, int pageNo, int pageSize,
+                                                  Predicate<VersionStamp> unchanged);
+
+    List<CommentDto> getAllComments(int pageNo, int pageSize);
 
-    List<CommentDto> getAllComments();
-}
\ No newline at end of file
+    // postId null means comments of all posts
+    CursorPageResponse<CommentDto> getCommentsByCursor(Long postId, String cursor, int pageSize);
+}
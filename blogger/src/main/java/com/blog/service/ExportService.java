@@ -0,0 +1,8 @@
+package com.blog.service;
+
+import java.io.OutputStream;
+
+public interface ExportService {
+    // writes every post as one JSON object per line (NDJSON), optionally with its comments
+    void exportPosts(boolean includeComments, OutputStream out);
+}
@@ -1,15 +1,48 @@
 package com.blog.service;
 
+import com.blog.payload.CursorPageResponse;
+import com.blog.payload.PostBatchResult;
 import com.blog.payload.PostDto;
+import com.blog.payload.PostPatchDto;
+import com.blog.payload.PostSearchResult;
+import com.blog.payload.PostSummaryDto;
+import com.blog.payload.VersionStamp;
 
+import java.util.Iterator;
 import java.util.List;
 
 public interface PostService {
     public PostDto createPost(PostDto postDto);
 
-    void deletePost(long id);
+    // false when the post has too many comments and was queued for a background purge instead
+    boolean deletePost(long id);
+
+    PostDto getPostById(long id);
+
+    // cheap lookup for conditional GETs, the post itself is not loaded
+    VersionStamp getPostVersion(long id);
 
     List<PostDto> getAllPosts(int pageNo, int pageSize, String sortBy, String sortDir);
 
-    PostDto updatePost(long postId, PostDto postDto);
+    List<PostSummaryDto> getPostSummaries(int pageNo, int pageSize, String sortBy, String sortDir);
+
+    CursorPageResponse<PostDto> getPostsByCursor(String cursor, int pageSize, String sortBy, String sortDir);
+
+    // expectedVersion comes from If-Match, null updates whatever the current version is
+    PostDto updatePost(long postId, PostDto postDto, Long expectedVersion);
+
+    // single versioned UPDATE of the non-null fields, returns the new version
+    long patchPost(long postId, PostPatchDto patch, long expectedVersion);
+
+    // items with id 0 are inserted, the others update the post with that id
+    List<PostBatchResult> savePostsInBatch(Iterator<PostDto> posts);
+
+    List<PostBatchResult> deletePostsInBatch(List<Long> ids);
+
+    List<PostSearchResult> searchPosts(String query, int pageNo, int pageSize);
+
+    int rebuildSearchIndex();
+
+    // recomputes posts.comment_count from the comments table, returns the number of posts corrected
+    int reconcileCommentCounts();
 }
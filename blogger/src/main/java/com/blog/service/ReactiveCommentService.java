@@ -0,0 +1,12 @@
+package com.blog.service;
+
+import com.blog.payload.CommentDto;
+import reactor.core.publisher.Flux;
+
+// Non-blocking mirror of the read side of CommentService, served from R2DBC
+public interface ReactiveCommentService {
+
+    Flux<CommentDto> getCommentsByPostId(long postId, int pageNo, int pageSize);
+
+    Flux<CommentDto> getAllComments(int pageNo, int pageSize);
+}
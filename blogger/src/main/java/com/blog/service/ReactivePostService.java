@@ -0,0 +1,16 @@
+package com.blog.service;
+
+import com.blog.payload.PostDto;
+import com.blog.payload.PostSummaryDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Non-blocking mirror of the read side of PostService, served from R2DBC
+public interface ReactivePostService {
+
+    Mono<PostDto> getPostById(long id);
+
+    Flux<PostDto> getAllPosts(int pageNo, int pageSize, String sortBy, String sortDir);
+
+    Flux<PostSummaryDto> getPostSummaries(int pageNo, int pageSize, String sortBy, String sortDir);
+}
@@ -0,0 +1,203 @@
+package com.blog.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps posts.comment_count in step with the comments table without a row lock per comment.
+// Creates and deletes only add to a per-post LongAdder (striped, so a viral post does not serialize
+// its commenters); flush() writes the summed deltas as one JDBC batch every flush-interval-ms.
+// reconcile() recomputes the counts from the comments table to repair any drift, once at startup
+// (reconcile-on-startup, counts of posts from before the column existed start at 0) and nightly.
+@Component
+public class CommentCounter implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentCounter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final boolean reconcileOnStartup;
+    private final Counter flushedPosts;
+    private final Counter reconciledPosts;
+
+    private final Map<Long, LongAdder> deltas = new ConcurrentHashMap<>();
+    // flush() and reconcile() one at a time. Not synchronized: with spring.threads.virtual.enabled the scheduler
+    // runs them on virtual threads, and a monitor held over JDBC calls pins the carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public CommentCounter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          @Value("${app.comments.counter.batch-size}") int batchSize,
+                          @Value("${app.comments.counter.reconcile-on-startup}") boolean reconcileOnStartup,
+                          MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.reconcileOnStartup = reconcileOnStartup;
+        this.flushedPosts = Counter.builder("comments.counter.flushed")
+                .description("Post comment counts updated from in-memory deltas")
+                .register(meterRegistry);
+        this.reconciledPosts = Counter.builder("comments.counter.reconciled")
+                .description("Post comment counts corrected by the reconciliation job")
+                .register(meterRegistry);
+        Gauge.builder("comments.counter.pending", deltas, Map::size)
+                .description("Posts with comment count changes not written yet")
+                .register(meterRegistry);
+    }
+
+    public void increment(long postId) {
+        add(postId, 1);
+    }
+
+    public void decrement(long postId) {
+        add(postId, -1);
+    }
+
+    // inside a transaction the delta is only added once the comment insert or delete commits: a rolled back
+    // change would otherwise stay in the count until the next reconcile()
+    private void add(long postId, long delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deltas.computeIfAbsent(postId, id -> new LongAdder()).add(delta);
+                }
+            });
+        } else {
+            deltas.computeIfAbsent(postId, id -> new LongAdder()).add(delta);
+        }
+    }
+
+    // change not yet in posts.comment_count, added to the stored count when it is read
+    public long pending(long postId) {
+        LongAdder delta = deltas.get(postId);
+        return delta == null ? 0 : delta.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${app.comments.counter.flush-interval-ms}")
+    public void flush() {
+        lock.lock();
+        try {
+            flushDeltas();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushDeltas() {
+        // by post id, so concurrent flushes from several nodes lock rows in the same order
+        Map<Long, Long> batch = new TreeMap<>();
+        for (Map.Entry<Long, LongAdder> entry : deltas.entrySet()) {
+            // sumThenReset takes every cell with getAndSet, an increment racing with it is counted now or next time
+            long delta = entry.getValue().sumThenReset();
+            if (delta != 0) {
+                batch.put(entry.getKey(), delta);
+            } else {
+                // idle since the last flush. An increment landing on the adder in the instant it is removed
+                // is lost until the next reconcile()
+                deltas.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        batch.forEach((postId, delta) -> rows.add(new Object[]{delta, postId}));
+        int from = 0;
+        try {
+            for (; from < rows.size(); from += batchSize) {
+                List<Object[]> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                // one transaction per chunk: it is written completely or not at all.
+                // Plain SQL: the count is not part of the post's @Version, ETag or updated_at
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate("update posts set comment_count = comment_count + ? where id = ?", chunk));
+                flushedPosts.increment(chunk.size());
+            }
+        } catch (RuntimeException ex) {
+            // put back the deltas of the chunks that were not committed, the next flush retries them
+            for (Object[] row : rows.subList(from, rows.size())) {
+                deltas.computeIfAbsent((Long) row[1], id -> new LongAdder()).add((Long) row[0]);
+            }
+            logger.error("Writing comment counts of {} posts failed, will retry", rows.size() - from, ex);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (reconcileOnStartup) {
+            reconcile();
+        }
+    }
+
+    // Sets every post's comment_count to count(*) of its comments, chunkSize posts per statement.
+    // Deltas are flushed first and none is written while this runs; a comment written while its chunk is
+    // being checked can leave that post off by one until the next run. Returns the number of posts corrected
+    @Scheduled(cron = "${app.comments.counter.reconcile-cron}")
+    public int reconcile() {
+        lock.lock();
+        try {
+            flushDeltas();
+            return reconcileCounts();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int reconcileCounts() {
+        long start = System.currentTimeMillis();
+        int corrected = 0;
+        long afterId = 0;
+        while (true) {
+            List<long[]> counts = jdbcTemplate.query(
+                    "select p.id, p.comment_count, (select count(*) from comments c where c.post_id = p.id) " +
+                            "from posts p where p.id > ? order by p.id limit ?",
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}, afterId, batchSize);
+            if (counts.isEmpty()) {
+                break;
+            }
+            List<Object[]> fixes = new ArrayList<>();
+            for (long[] row : counts) {
+                // comments created since the last flush are in count(*) and still in the deltas
+                long expected = row[2] - pending(row[0]);
+                if (row[1] != expected) {
+                    fixes.add(new Object[]{expected, row[0]});
+                }
+            }
+            if (!fixes.isEmpty()) {
+                jdbcTemplate.batchUpdate("update posts set comment_count = ? where id = ?", fixes);
+                corrected += fixes.size();
+            }
+            afterId = counts.get(counts.size() - 1)[0];
+        }
+        reconciledPosts.increment(corrected);
+        logger.info("Comment count reconciliation corrected {} posts in {} ms", corrected, System.currentTimeMillis() - start);
+        return corrected;
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+}
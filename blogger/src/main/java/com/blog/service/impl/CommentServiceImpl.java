@@ -2,81 +2,164 @@ package com.blog.service.impl;
 
 import com.blog.entity.Comment;
 import com.blog.entity.Post;
+import com.blog.exception.BlogAPIException;
 import com.blog.exception.ResourceNotFoundException;
+import com.blog.mapper.CommentMapper;
 import com.blog.payload.CommentDto;
+import com.blog.payload.CursorPageResponse;
+import com.blog.payload.VersionStamp;
+import com.blog.payload.VersionedBody;
 import com.blog.repository.CommentRepository;
 import com.blog.repository.PostRepository;
 import com.blog.service.CommentService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
 @Service
 public class CommentServiceImpl implements CommentService {
 
     private PostRepository postRepository;
     private CommentRepository commentRepository;
-
-    public CommentServiceImpl(PostRepository postRepository, CommentRepository commentRepository) {
+    private CommentCounter commentCounter;
+    private CommentWriteBehind commentWriteBehind;
+    private CommentMapper commentMapper;
+    private PostPurger postPurger;
+    // ids of posts seen to exist, so queueComment does not query per comment. Only hits are cached: a post
+    // created a moment ago is found on the next try. A post deleted since can still take comments for up to
+    // the TTL, their insert then fails and they are dropped
+    private Cache<Long, Boolean> knownPosts;
+
+    // upper bound on pageSize so one request can never pull the whole comments table into memory
+    @Value("${app.comments.max-page-size}")
+    private int maxPageSize;
+
+    public CommentServiceImpl(PostRepository postRepository, CommentRepository commentRepository,
+                              CommentCounter commentCounter, CommentWriteBehind commentWriteBehind, CommentMapper commentMapper,
+                              PostPurger postPurger,
+                              @Value("${app.comments.write-behind.known-posts.max-size}") long knownPostsMaxSize,
+                              @Value("${app.comments.write-behind.known-posts.ttl-seconds}") long knownPostsTtlSeconds) {
         this.postRepository = postRepository;
         this.commentRepository = commentRepository;
+        this.commentCounter = commentCounter;
+        this.commentWriteBehind = commentWriteBehind;
+        this.commentMapper = commentMapper;
+        this.postPurger = postPurger;
+        this.knownPosts = Caffeine.newBuilder()
+                .maximumSize(knownPostsMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(knownPostsTtlSeconds))
+                .build();
     }
 
+    @Transactional
     @Override
     public CommentDto createComment(long postId, CommentDto commentDto) {
-        Post post = postRepository.findById(postId).orElseThrow(
-                () -> new ResourceNotFoundException("Post not found wih id: " + postId)
-        );
-
-        Comment comment = new Comment();
-        comment.setName(commentDto.getName());
-        comment.setEmail(commentDto.getEmail());
-        comment.setBody(commentDto.getBody());
-
+        checkNotBeingDeleted(postId);
+        // the comment only needs the post's id: check it exists and link a reference, without loading the post
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post not found wih id: " + postId);
+        }
+        Post post = postRepository.getReferenceById(postId);
+
+        Comment comment = commentMapper.toEntity(commentDto);
         comment.setPost(post);
 
         Comment savedComment = commentRepository.save(comment);
+        commentCounter.increment(postId);
 
-        CommentDto dto = new CommentDto();
+        return commentMapper.toDto(savedComment);
+    }
 
-        dto.setId(savedComment.getId());
-        dto.setName(savedComment.getName());
-        dto.setEmail(savedComment.getEmail());
-        dto.setBody(savedComment.getBody());
+    @Override
+    public void queueComment(long postId, CommentDto commentDto) {
+        checkNotBeingDeleted(postId);
+        if (knownPosts.getIfPresent(postId) == null) {
+            if (!postRepository.existsById(postId)) {
+                throw new ResourceNotFoundException("Post not found wih id: " + postId);
+            }
+            knownPosts.put(postId, Boolean.TRUE);
+        }
+        commentWriteBehind.submit(commentMapper.toQueued(postId, commentDto));
+    }
 
-        return dto;
+    // a post with many comments stays visible while PostPurger deletes them, new ones would keep it alive
+    private void checkNotBeingDeleted(long postId) {
+        if (postPurger.isPending(postId)) {
+            throw new BlogAPIException(HttpStatus.CONFLICT, "Post " + postId + " is being deleted");
+        }
     }
 
+    @Transactional
     @Override
     public void deleteComment(long commentId) {
         Comment comment = commentRepository.findById(commentId).orElseThrow(
                 () -> new ResourceNotFoundException("Comment not found with Id: " + commentId)
         );
         commentRepository.deleteById(commentId);
+        commentCounter.decrement(comment.getPost().getId());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<CommentDto> getCommentsByPostId(long postid, int pageNo, int pageSize) {
+        return commentRepository.findDtosByPostId(postid, 0, pageable(pageNo, pageSize)).getContent();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public VersionedBody<?> getVersionedCommentsByPostId(long postId, String cursor, int pageNo, int pageSize,
+                                                         Predicate<VersionStamp> unchanged) {
+        VersionStamp stamp = commentRepository.findVersionStampByPostId(postId);
+        if (unchanged.test(stamp)) {
+            return new VersionedBody<>(stamp, null);
+        }
+        Object page = cursor != null ? getCommentsByCursor(postId, cursor, pageSize)
+                : getCommentsByPostId(postId, pageNo, pageSize);
+        return new VersionedBody<>(stamp, page);
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public List<CommentDto> getCommentsByPostId(long postid) {
-        List<Comment> comments =
-                commentRepository.findByPostId(postid);
-        List<CommentDto> commentDtos = comments.stream().map(c -> mapTODto(c)).collect(Collectors.toList());
-        return commentDtos;
+    public List<CommentDto> getAllComments(int pageNo, int pageSize) {
+        return commentRepository.findDtos(0, pageable(pageNo, pageSize)).getContent();
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public List<CommentDto> getAllComments() {
-        List<Comment> comments = commentRepository.findAll();
-        List<CommentDto> dtos = comments.stream().map(c -> mapTODto(c)).collect(Collectors.toList());
-        return dtos;
+    public CursorPageResponse<CommentDto> getCommentsByCursor(Long postId, String cursor, int pageSize) {
+        long afterId = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            if (!after.getSortBy().equals("id")) {
+                throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Not a comment cursor: " + cursor);
+            }
+            afterId = after.getId();
+        }
+        Pageable pageable = pageable(0, pageSize);
+        Slice<CommentDto> slice = postId == null
+                ? commentRepository.findDtos(afterId, pageable)
+                : commentRepository.findDtosByPostId(postId, afterId, pageable);
+
+        List<CommentDto> dtos = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            nextCursor = new KeysetCursor("id", null, dtos.get(dtos.size() - 1).getId()).encode();
+        }
+        return new CursorPageResponse<>(dtos, nextCursor, !slice.hasNext());
     }
 
-    CommentDto mapTODto(Comment comment){
-        CommentDto dto = new CommentDto();
-        dto.setId(comment.getId());
-        dto.setName(comment.getName());
-        dto.setEmail(comment.getEmail());
-        dto.setBody(comment.getBody());
-        return dto;
+    private Pageable pageable(int pageNo, int pageSize) {
+        return PageRequest.of(pageNo, PageBounds.limit(pageNo, pageSize, maxPageSize), Sort.by("id").ascending());
     }
 }
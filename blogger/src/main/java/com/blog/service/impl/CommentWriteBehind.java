@@ -0,0 +1,176 @@
+package com.blog.service.impl;
+
+import com.blog.exception.BlogAPIException;
+import com.blog.payload.PostCommentDto;
+import com.blog.repository.CommentBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind ingestion of comments (app.comments.write-behind.enabled): requests only queue the comment,
+// one writer thread takes whatever is queued, up to batch-size, and inserts it as one multi-row INSERT.
+// A full queue is refused with 429 instead of letting the backlog grow without bound. On shutdown the
+// writer keeps going until the queue is empty or drain-timeout-ms is up
+@Component
+public class CommentWriteBehind implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentWriteBehind.class);
+
+    // how often an idle writer checks whether it was stopped
+    private static final long IDLE_POLL_MS = 100;
+
+    private final CommentBatchRepository commentBatchRepository;
+    private final CommentCounter commentCounter;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long drainTimeoutMs;
+    private final BlockingQueue<PostCommentDto> queue;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter written;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public CommentWriteBehind(CommentBatchRepository commentBatchRepository, CommentCounter commentCounter,
+                              @Value("${app.comments.write-behind.enabled}") boolean enabled,
+                              @Value("${app.comments.write-behind.queue-capacity}") int queueCapacity,
+                              @Value("${app.comments.write-behind.batch-size}") int batchSize,
+                              @Value("${app.comments.write-behind.drain-timeout-ms}") long drainTimeoutMs,
+                              MeterRegistry meterRegistry) {
+        this.commentBatchRepository = commentBatchRepository;
+        this.commentCounter = commentCounter;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.drainTimeoutMs = drainTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.accepted = counter(meterRegistry, "accepted", "Comments queued for writing");
+        this.rejected = counter(meterRegistry, "rejected", "Comments refused because the queue was full");
+        this.written = counter(meterRegistry, "written", "Queued comments inserted");
+        this.failed = counter(meterRegistry, "failed", "Queued comments dropped because their insert failed");
+        this.flushTimer = Timer.builder("comments.ingest.flush")
+                .description("Time to insert one batch of queued comments")
+                .register(meterRegistry);
+        Gauge.builder("comments.ingest.queue", queue, BlockingQueue::size)
+                .description("Comments queued and not written yet")
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String description) {
+        return Counter.builder("comments.ingest." + name).description(description).register(meterRegistry);
+    }
+
+    public void submit(PostCommentDto comment) {
+        if (!running) {
+            throw new BlogAPIException(HttpStatus.SERVICE_UNAVAILABLE, "Comments are not being accepted right now");
+        }
+        if (!queue.offer(comment)) {
+            rejected.increment();
+            throw new BlogAPIException(HttpStatus.TOO_MANY_REQUESTS, "Too many comments waiting to be written, retry later");
+        }
+        accepted.increment();
+    }
+
+    private void run() {
+        List<PostCommentDto> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            PostCommentDto first;
+            try {
+                first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // only stop() interrupts, and only once the drain timeout is up
+                break;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PostCommentDto> batch) {
+        Timer.Sample sample = Timer.start();
+        try {
+            commentBatchRepository.insertAll(batch);
+            written.increment(batch.size());
+            batch.forEach(comment -> commentCounter.increment(comment.getPostId()));
+        } catch (DataAccessException ex) {
+            // typically a post deleted after its comment was queued: one by one, so only that comment is lost
+            logger.warn("Inserting {} queued comments failed, retrying them one by one", batch.size(), ex);
+            for (PostCommentDto comment : batch) {
+                try {
+                    commentBatchRepository.insertAll(List.of(comment));
+                    written.increment();
+                    commentCounter.increment(comment.getPostId());
+                } catch (DataAccessException oneEx) {
+                    failed.increment();
+                    logger.error("Dropped queued comment for post {}: {}", comment.getPostId(), oneEx.getMessage());
+                }
+            }
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::run, "comment-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(drainTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+        if (!queue.isEmpty()) {
+            logger.error("{} queued comments were not written before shutdown", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // below the web server's phases: stopped after the server has finished its requests, so nothing is
+    // queued once the writer drains
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.blog.service.impl;
+
+import com.blog.entity.Post;
+import com.blog.mapper.CommentMapper;
+import com.blog.mapper.PostMapper;
+import com.blog.payload.CommentDto;
+import com.blog.payload.PostCommentDto;
+import com.blog.payload.PostExportDto;
+import com.blog.repository.CommentRepository;
+import com.blog.repository.PostRepository;
+import com.blog.service.ExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private CommentMapper commentMapper;
+    private PostMapper postMapper;
+    private EntityManager entityManager;
+    private ObjectWriter lineWriter;
+    private TransactionTemplate readOnlyTransaction;
+
+    // posts held in memory at a time (and whose comments are read with one query)
+    @Value("${app.export.chunk-size}")
+    private int chunkSize;
+
+    public ExportServiceImpl(PostRepository postRepository, CommentRepository commentRepository, CommentMapper commentMapper,
+                             PostMapper postMapper, EntityManager entityManager, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.commentMapper = commentMapper;
+        this.postMapper = postMapper;
+        this.entityManager = entityManager;
+        // writes into the response stream without closing it
+        this.lineWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void exportPosts(boolean includeComments, OutputStream out) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Post> posts = postRepository.streamAllBy()) {
+                List<PostExportDto> chunk = new ArrayList<>(chunkSize);
+                Iterator<Post> iterator = posts.iterator();
+                while (iterator.hasNext()) {
+                    Post post = iterator.next();
+                    chunk.add(postMapper.toExportDto(post));
+                    // keep the persistence context empty, otherwise every exported post stays on the heap
+                    entityManager.detach(post);
+                    if (chunk.size() == chunkSize) {
+                        writeChunk(chunk, includeComments, out);
+                    }
+                }
+                writeChunk(chunk, includeComments, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeChunk(List<PostExportDto> chunk, boolean includeComments, OutputStream out) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        if (includeComments) {
+            List<Long> postIds = chunk.stream().map(PostExportDto::getId).collect(Collectors.toList());
+            // each post takes its comments from the cursor while it is written, so only the comment being
+            // written is in memory however many the chunk has
+            try (Stream<PostCommentDto> comments = commentRepository.streamDtosByPostIdIn(postIds)) {
+                CommentCursor cursor = new CommentCursor(comments.iterator());
+                for (PostExportDto post : chunk) {
+                    post.setComments(cursor.commentsOf(post.getId()));
+                    writeLine(post, out);
+                }
+            }
+        } else {
+            for (PostExportDto post : chunk) {
+                writeLine(post, out);
+            }
+        }
+        out.flush();
+        chunk.clear();
+    }
+
+    private void writeLine(PostExportDto post, OutputStream out) throws IOException {
+        lineWriter.writeValue(out, post);
+        out.write('\n');
+    }
+
+    // comments in post id order, as the chunk's posts are: commentsOf(postId) iterates the rows of that post,
+    // which must be the next post in the result
+    private class CommentCursor {
+
+        private final Iterator<PostCommentDto> rows;
+        private PostCommentDto head;
+
+        CommentCursor(Iterator<PostCommentDto> rows) {
+            this.rows = rows;
+            this.head = rows.hasNext() ? rows.next() : null;
+        }
+
+        Iterator<CommentDto> commentsOf(long postId) {
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return head != null && head.getPostId() == postId;
+                }
+
+                @Override
+                public CommentDto next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    CommentDto comment = commentMapper.toDto(head);
+                    head = rows.hasNext() ? rows.next() : null;
+                    return comment;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.blog.service.impl;
+
+import com.blog.exception.BlogAPIException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque cursor for keyset pagination: remembers the sort column, the last seen
+// value of that column and the last seen id (tie breaker), base64url encoded.
+class KeysetCursor {
+
+    private final String sortBy;
+    private final String value;
+    private final long id;
+
+    KeysetCursor(String sortBy, String value, long id) {
+        this.sortBy = sortBy;
+        this.value = value;
+        this.id = id;
+    }
+
+    String getSortBy() {
+        return sortBy;
+    }
+
+    String getValue() {
+        return value;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    String encode() {
+        String raw = id + ":" + sortBy + ":" + (value == null ? "" : value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            return new KeysetCursor(parts[1], parts[2], Long.parseLong(parts[0]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.blog.service.impl;
+
+import com.blog.exception.BlogAPIException;
+import org.springframework.http.HttpStatus;
+
+// pageNo and pageSize from the query string. A negative page or a size below 1 would otherwise reach
+// PageRequest.of (IllegalArgumentException) or the SQL as a negative LIMIT/OFFSET, both a 500
+final class PageBounds {
+
+    private PageBounds() {
+    }
+
+    static void check(int pageNo, int pageSize) {
+        if (pageNo < 0 || pageSize < 1) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "pageNo must be at least 0 and pageSize at least 1");
+        }
+    }
+
+    // the page size to use, at most maxPageSize
+    static int limit(int pageNo, int pageSize, int maxPageSize) {
+        check(pageNo, pageSize);
+        return Math.min(pageSize, maxPageSize);
+    }
+}
@@ -0,0 +1,156 @@
+package com.blog.service.impl;
+
+import com.blog.config.CacheConfig;
+import com.blog.repository.CommentRepository;
+import com.blog.repository.PostRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Deletes posts with too many comments to remove inside a request: the comments go in chunks of
+// app.posts.delete.purge-chunk-size, each in its own short transaction, then the post itself.
+// One purge runs at a time so a burst of deletes cannot hog the connection pool. New comments on a post
+// being purged are refused (isPending); one accepted just before can still land after the chunks, the post
+// delete then fails its foreign key and the chunks run again.
+// The queue is only in memory, the posts.deleting marker is what lasts: purges cut short by a restart
+// start again at startup.
+@Component
+public class PostPurger implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostPurger.class);
+
+    // chunk deletes + post delete rounds before giving up on a post that keeps getting comments
+    private static final int MAX_ROUNDS = 5;
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final int chunkSize;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "post-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PostPurger(PostRepository postRepository, CommentRepository commentRepository,
+                      PlatformTransactionManager transactionManager, CacheManager cacheManager,
+                      @Value("${app.posts.delete.purge-chunk-size}") int chunkSize,
+                      MeterRegistry meterRegistry) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.chunkSize = chunkSize;
+        Gauge.builder("posts.purge.pending", pending, Set::size)
+                .description("Posts waiting for or in the middle of a background purge")
+                .register(meterRegistry);
+    }
+
+    // of a post marked deleting (PostRepository.markDeleting); inside a transaction the purge starts once it
+    // commits, so it never runs for a marker that is rolled back
+    public void schedule(long postId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    start(postId);
+                }
+            });
+        } else {
+            start(postId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        List<Long> marked = postRepository.findDeletingIds();
+        if (!marked.isEmpty()) {
+            logger.info("Resuming the purge of {} posts", marked.size());
+            marked.forEach(this::start);
+        }
+    }
+
+    private void start(long postId) {
+        if (pending.add(postId)) {
+            executor.execute(() -> purge(postId));
+        }
+    }
+
+    // true from the start of the purge until it has finished
+    public boolean isPending(long postId) {
+        return pending.contains(postId);
+    }
+
+    private void purge(long postId) {
+        long start = System.currentTimeMillis();
+        try {
+            long deleted = 0;
+            for (int round = 1; ; round++) {
+                int count;
+                do {
+                    count = transactionTemplate.execute(status -> commentRepository.deleteChunkByPostId(postId, chunkSize));
+                    deleted += count;
+                } while (count == chunkSize);
+                try {
+                    transactionTemplate.execute(status -> postRepository.deletePostById(postId));
+                    break;
+                } catch (DataIntegrityViolationException ex) {
+                    if (round == MAX_ROUNDS) {
+                        throw ex;
+                    }
+                    logger.info("Post {} got comments while they were being purged, purging again", postId);
+                }
+            }
+
+            // the post may have been read back into the caches while the purge was running
+            evict(postId);
+            logger.info("Purged post {} and {} comments in {} ms", postId, deleted, System.currentTimeMillis() - start);
+        } catch (RuntimeException ex) {
+            logger.error("Purge of post {} failed, deleting it again or a restart will retry", postId, ex);
+        } finally {
+            pending.remove(postId);
+        }
+    }
+
+    private void evict(long postId) {
+        for (String name : new String[]{CacheConfig.POSTS, CacheConfig.ENCODED_POSTS}) {
+            Cache posts = cacheManager.getCache(name);
+            if (posts != null) {
+                posts.evict(postId);
+            }
+        }
+        for (String name : new String[]{CacheConfig.POST_PAGES, CacheConfig.ENCODED_POST_PAGES}) {
+            Cache pages = cacheManager.getCache(name);
+            if (pages != null) {
+                pages.clear();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -1,98 +1,429 @@
 package com.blog.service.impl;
 
+import com.blog.config.CacheConfig;
 import com.blog.entity.Post;
+import com.blog.exception.BlogAPIException;
 import com.blog.exception.ResourceNotFoundException;
+import com.blog.mapper.PostMapper;
+import com.blog.payload.CursorPageResponse;
+import com.blog.payload.PostBatchResult;
 import com.blog.payload.PostDto;
+import com.blog.payload.PostPatchDto;
+import com.blog.payload.PostSearchResult;
+import com.blog.payload.PostSummaryDto;
+import com.blog.payload.VersionStamp;
+import com.blog.repository.CommentRepository;
+import com.blog.repository.PostBatchRepository;
 import com.blog.repository.PostRepository;
+import com.blog.search.PostSearchIndex;
 import com.blog.service.PostService;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
-import java.util.stream.Collectors;
 
 @Service
 public class PostServiceImpl implements PostService {
 
 
     private PostRepository postRepo;
+    private PostBatchRepository postBatchRepo;
+    private Validator validator;
+    private PostSearchIndex searchIndex;
+    private CommentRepository commentRepo;
+    private PostPurger postPurger;
+    private CommentCounter commentCounter;
+    private PostMapper postMapper;
+
+    // posts with more comments than this are deleted in the background by PostPurger
+    @Value("${app.posts.delete.purge-threshold}")
+    private long purgeThreshold;
+
+    // rows per JDBC batch in the bulk endpoints
+    @Value("${app.posts.batch.chunk-size}")
+    private int batchChunkSize;
+
+    @Value("${app.search.max-page-size}")
+    private int searchMaxPageSize;
 
-    public PostServiceImpl(PostRepository postRepo) {
+    // hits a search ranks at most, (pageNo + 1) * pageSize
+    @Value("${app.search.max-results}")
+    private int searchMaxResults;
+
+    public PostServiceImpl(PostRepository postRepo, PostBatchRepository postBatchRepo, Validator validator,
+                           PostSearchIndex searchIndex, CommentRepository commentRepo, PostPurger postPurger,
+                           CommentCounter commentCounter, PostMapper postMapper) {
         this.postRepo = postRepo;
+        this.postBatchRepo = postBatchRepo;
+        this.validator = validator;
+        this.searchIndex = searchIndex;
+        this.commentRepo = commentRepo;
+        this.postPurger = postPurger;
+        this.commentCounter = commentCounter;
+        this.postMapper = postMapper;
     }
 
+    @CacheEvict(cacheNames = {CacheConfig.POST_PAGES, CacheConfig.ENCODED_POST_PAGES}, allEntries = true)
     @Override
     public PostDto createPost(PostDto postDto) {
 
-        Post post = new Post();
-        post.setTitle(postDto.getTitle());
-        post.setDescription(postDto.getDescription());
-        post.setContent(postDto.getContent());
+        Post savedPost = postRepo.save(postMapper.toEntity(postDto));
+        searchIndex.index(savedPost.getId(), savedPost.getTitle(), savedPost.getDescription(), savedPost.getContent());
 
-        Post savedPost = postRepo.save(post);
+        return postMapper.toDto(savedPost);
 
-        PostDto dto = new PostDto();
-        dto.setId(savedPost.getId());
-        dto.setTitle(savedPost.getTitle());
-        dto.setDescription(savedPost.getDescription());
-        dto.setContent(savedPost.getContent());
+    }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.POSTS, CacheConfig.ENCODED_POSTS}, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.POST_PAGES, CacheConfig.ENCODED_POST_PAGES}, allEntries = true)
+    })
+    // set based: bounded count, one delete for the comments and one for the post, whatever the number of comments
+    @Transactional
+    @Override
+    public boolean deletePost(long id) {
+        String purge = purgeInBackground(id);
+        if (PostBatchResult.NOT_FOUND.equals(purge)) {
+            throw new ResourceNotFoundException("Post not found with id: " + id);
+        }
+        if (purge != null) {
+            return false;
+        }
 
-        return dto;
+        commentRepo.deleteAllByPostId(id);
+        if (postRepo.deletePostById(id) == 0) {
+            throw new ResourceNotFoundException("Post not found with id: " + id);
+        }
+        searchIndex.remove(id);
+        return true;
+    }
 
+    // a post with more than purgeThreshold comments is marked deleting, which hides it, and left to PostPurger:
+    // DELETING, or NOT_FOUND when there is no such post. null means it is small enough to delete right away
+    private String purgeInBackground(long id) {
+        if (postPurger.isPending(id)) {
+            return PostBatchResult.DELETING;
+        }
+        if (commentRepo.countByPostIdUpTo(id, purgeThreshold + 1) <= purgeThreshold) {
+            return null;
+        }
+        if (postRepo.markDeleting(id) == 0) {
+            return PostBatchResult.NOT_FOUND;
+        }
+        searchIndex.remove(id);
+        postPurger.schedule(id);
+        return PostBatchResult.DELETING;
     }
 
+    @Cacheable(cacheNames = CacheConfig.POSTS, key = "#id", sync = true)
     @Override
-    public void deletePost(long id) {
-        Post post = postRepo.findById(id).orElseThrow(
+    public PostDto getPostById(long id) {
+        Post post = postRepo.findPostById(id).orElseThrow(
                 () -> new ResourceNotFoundException("Post not found with id: " + id)
         );
+        return postMapper.toDto(post);
+    }
 
-        postRepo.deleteById(id);
-
-
+    @Transactional(readOnly = true)
+    @Override
+    public VersionStamp getPostVersion(long id) {
+        return postRepo.findVersionStampById(id).orElseThrow(
+                () -> new ResourceNotFoundException("Post not found with id: " + id)
+        );
     }
 
+    // key is (pageNo, pageSize, sortBy, sortDir). Read from the primary like getPostById, a page filled from a
+    // lagging replica would be cached (and encoded, EncodedResponses) stale
+    @Cacheable(cacheNames = CacheConfig.POST_PAGES, sync = true)
     @Override
     public List<PostDto> getAllPosts(int pageNo, int pageSize, String sortBy, String sortDir) {
        Sort sort = (sortDir.equalsIgnoreCase(Sort.Direction.ASC.name())) ?Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         //Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name() ) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        PageBounds.check(pageNo, pageSize);
         Pageable pageable = PageRequest.of(pageNo,pageSize, sort);
-        Page<Post> pagePosts = postRepo.findAll(pageable);
-        List<Post> posts = pagePosts.getContent();
-        List<PostDto> dtos = posts.stream().map(p -> mapToDto(p)).collect(Collectors.toList());
-        return dtos;
+        Page<Post> pagePosts = postRepo.findPageBy(pageable);
+        return postMapper.toDtos(pagePosts);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<PostSummaryDto> getPostSummaries(int pageNo, int pageSize, String sortBy, String sortDir) {
+        Sort sort = (sortDir.equalsIgnoreCase(Sort.Direction.ASC.name())) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        PageBounds.check(pageNo, pageSize);
+        Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
+        List<PostSummaryDto> summaries = postRepo.findSummaries(pageable).getContent();
+        // plus the comments not flushed to posts.comment_count yet
+        summaries.forEach(summary -> summary.setCommentCount(summary.getCommentCount() + commentCounter.pending(summary.getId())));
+        return summaries;
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public PostDto updatePost(long postId, PostDto postDto) {
+    public CursorPageResponse<PostDto> getPostsByCursor(String cursor, int pageSize, String sortBy, String sortDir) {
+        if (!sortBy.equals("id") && !sortBy.equals("title")) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Cursor pagination supports sortBy id or title, not: " + sortBy);
+        }
+        PageBounds.check(0, pageSize);
+        boolean asc = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name());
+        Sort.Direction direction = asc ? Sort.Direction.ASC : Sort.Direction.DESC;
+        // id is always the tie breaker so the order is total and no row is skipped or repeated
+        // (the title queries order by title, id themselves)
+        Pageable pageable = sortBy.equals("id") ? PageRequest.of(0, pageSize, Sort.by(direction, "id"))
+                : PageRequest.of(0, pageSize);
+
+        Slice<Post> slice;
+        if (cursor == null || cursor.isEmpty()) {
+            slice = sortBy.equals("id") ? postRepo.findAllBy(pageable)
+                    : asc ? postRepo.findByTitleAsc(pageable) : postRepo.findByTitleDesc(pageable);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            if (!after.getSortBy().equals(sortBy)) {
+                throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Cursor was issued for sortBy " + after.getSortBy());
+            }
+            if (sortBy.equals("id")) {
+                slice = asc ? postRepo.findByIdGreaterThan(after.getId(), pageable)
+                        : postRepo.findByIdLessThan(after.getId(), pageable);
+            } else {
+                slice = asc ? postRepo.findAfterTitleAsc(after.getValue(), after.getId(), pageable)
+                        : postRepo.findAfterTitleDesc(after.getValue(), after.getId(), pageable);
+            }
+        }
+
+        List<Post> posts = slice.getContent();
+        List<PostDto> dtos = postMapper.toDtos(slice);
+
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            Post last = posts.get(posts.size() - 1);
+            String value = sortBy.equals("id") ? null : last.getTitle();
+            nextCursor = new KeysetCursor(sortBy, value, last.getId()).encode();
+        }
+        return new CursorPageResponse<>(dtos, nextCursor, !slice.hasNext());
+    }
+
+    // any write can move posts between pages, so all cached pages are dropped
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.POSTS, CacheConfig.ENCODED_POSTS}, key = "#postId"),
+            @CacheEvict(cacheNames = {CacheConfig.POST_PAGES, CacheConfig.ENCODED_POST_PAGES}, allEntries = true)
+    })
+    // one transaction so the read comes from the primary, not a replica behind the version being updated
+    @Transactional
+    @Override
+    public PostDto updatePost(long postId, PostDto postDto, Long expectedVersion) {
         Post post = postRepo.findById(postId).orElseThrow(
                 ()->new ResourceNotFoundException("Post Not Found with Id: "+postId)
         );
+        if (expectedVersion != null && post.getVersion() != expectedVersion) {
+            throw staleVersion(postId, expectedVersion);
+        }
 
-        post.setTitle(postDto.getTitle());
-        post.setContent(postDto.getContent());
-        post.setDescription(postDto.getDescription());
+        postMapper.update(postDto, post);
+
+        // an edit committed between the read above and this write fails the @Version check (412, GlobalExceptionHandler)
+        // flushed here so the returned version (the ETag) is the incremented one
+        Post savedPost = postRepo.saveAndFlush(post);
+        searchIndex.index(savedPost.getId(), savedPost.getTitle(), savedPost.getDescription(), savedPost.getContent());
+
+        return postMapper.toDto(savedPost);
+    }
 
-        Post savedPost = postRepo.save(post);
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.POSTS, CacheConfig.ENCODED_POSTS}, key = "#postId"),
+            @CacheEvict(cacheNames = {CacheConfig.POST_PAGES, CacheConfig.ENCODED_POST_PAGES}, allEntries = true)
+    })
+    @Transactional
+    @Override
+    public long patchPost(long postId, PostPatchDto patch, long expectedVersion) {
+        if (patch.getTitle() == null && patch.getDescription() == null && patch.getContent() == null) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Nothing to update");
+        }
+        int updated = postRepo.patchPost(postId, expectedVersion, patch.getTitle(), patch.getDescription(),
+                patch.getContent(), Instant.now());
+        if (updated == 0) {
+            // only on failure: tell a missing post from a stale version
+            if (!postRepo.existsById(postId)) {
+                throw new ResourceNotFoundException("Post Not Found with Id: " + postId);
+            }
+            throw staleVersion(postId, expectedVersion);
+        }
+        searchIndex.update(postId, patch.getTitle(), patch.getDescription(), patch.getContent());
+        return expectedVersion + 1;
+    }
+
+    private BlogAPIException staleVersion(long postId, long expectedVersion) {
+        return new BlogAPIException(HttpStatus.PRECONDITION_FAILED,
+                "Post " + postId + " was changed since version " + expectedVersion + ", reload it and retry");
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.POSTS, CacheConfig.ENCODED_POSTS}, allEntries = true),
+            @CacheEvict(cacheNames = {CacheConfig.POST_PAGES, CacheConfig.ENCODED_POST_PAGES}, allEntries = true)
+    })
+    @Transactional
+    @Override
+    public List<PostBatchResult> savePostsInBatch(Iterator<PostDto> posts) {
+        List<PostBatchResult> results = new ArrayList<>();
+        List<PostDto> inserts = new ArrayList<>(batchChunkSize);
+        List<Integer> insertIndexes = new ArrayList<>(batchChunkSize);
+        List<PostDto> updates = new ArrayList<>(batchChunkSize);
+        List<Integer> updateIndexes = new ArrayList<>(batchChunkSize);
+
+        int index = 0;
+        while (posts.hasNext()) {
+            PostDto post = posts.next();
+            if (post == null) {
+                // a JSON null item: Validator.validate(null) would throw and fail the whole batch
+                results.add(new PostBatchResult(index++, 0, PostBatchResult.INVALID, "item must not be null"));
+                continue;
+            }
+            Set<ConstraintViolation<PostDto>> violations = validator.validate(post);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<PostDto> violation = violations.iterator().next();
+                results.add(new PostBatchResult(index, post.getId(), PostBatchResult.INVALID,
+                        violation.getPropertyPath() + ": " + violation.getMessage()));
+            } else if (post.getId() == 0) {
+                inserts.add(post);
+                insertIndexes.add(index);
+            } else {
+                updates.add(post);
+                updateIndexes.add(index);
+            }
+            index++;
+
+            if (inserts.size() == batchChunkSize) {
+                flushInserts(inserts, insertIndexes, results);
+            }
+            if (updates.size() == batchChunkSize) {
+                flushUpdates(updates, updateIndexes, results);
+            }
+        }
+        flushInserts(inserts, insertIndexes, results);
+        flushUpdates(updates, updateIndexes, results);
+
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return results;
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.POSTS, CacheConfig.ENCODED_POSTS}, allEntries = true),
+            @CacheEvict(cacheNames = {CacheConfig.POST_PAGES, CacheConfig.ENCODED_POST_PAGES}, allEntries = true)
+    })
+    @Transactional
+    @Override
+    public List<PostBatchResult> deletePostsInBatch(List<Long> ids) {
+        List<PostBatchResult> results = new ArrayList<>(ids.size());
+        List<Long> deletes = new ArrayList<>(batchChunkSize);
+        List<Integer> deleteIndexes = new ArrayList<>(batchChunkSize);
+        for (int index = 0; index < ids.size(); index++) {
+            // the same threshold as deletePost: big posts go to PostPurger, the rest are deleted a chunk at a time
+            long id = ids.get(index);
+            String purge = purgeInBackground(id);
+            if (purge != null) {
+                results.add(new PostBatchResult(index, id, purge, null));
+            } else {
+                deletes.add(id);
+                deleteIndexes.add(index);
+            }
+            if (deletes.size() == batchChunkSize) {
+                flushDeletes(deletes, deleteIndexes, results);
+            }
+        }
+        flushDeletes(deletes, deleteIndexes, results);
+
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return results;
+    }
+
+    @Override
+    public List<PostSearchResult> searchPosts(String query, int pageNo, int pageSize) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Search query must not be empty");
+        }
+        if (pageNo < 0 || pageSize < 1 || pageSize > searchMaxPageSize) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "pageSize must be between 1 and " + searchMaxPageSize);
+        }
+        if ((pageNo + 1L) * pageSize > searchMaxResults) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Search results are limited to the first " + searchMaxResults);
+        }
+        return searchIndex.search(query, pageNo, pageSize);
+    }
+
+    @Override
+    public int rebuildSearchIndex() {
+        searchIndex.rebuild();
+        return searchIndex.size();
+    }
+
+    @Override
+    public int reconcileCommentCounts() {
+        return commentCounter.reconcile();
+    }
+
+    private void flushInserts(List<PostDto> inserts, List<Integer> indexes, List<PostBatchResult> results) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        postBatchRepo.insertAll(inserts);
+        for (int i = 0; i < inserts.size(); i++) {
+            PostDto post = inserts.get(i);
+            results.add(new PostBatchResult(indexes.get(i), post.getId(), PostBatchResult.CREATED, null));
+            searchIndex.index(post.getId(), post.getTitle(), post.getDescription(), post.getContent());
+        }
+        inserts.clear();
+        indexes.clear();
+    }
 
-        PostDto dto = mapToDto(savedPost);
-        return dto;
+    private void flushDeletes(List<Long> deletes, List<Integer> indexes, List<PostBatchResult> results) {
+        if (deletes.isEmpty()) {
+            return;
+        }
+        int[] counts = postBatchRepo.deleteAll(deletes);
+        for (int i = 0; i < deletes.size(); i++) {
+            long id = deletes.get(i);
+            String status = counts[i] == 0 ? PostBatchResult.NOT_FOUND : PostBatchResult.DELETED;
+            results.add(new PostBatchResult(indexes.get(i), id, status, null));
+            if (counts[i] != 0) {
+                searchIndex.remove(id);
+            }
+        }
+        deletes.clear();
+        indexes.clear();
     }
 
-    PostDto mapToDto(Post post){
-        PostDto dto = new PostDto();
-        dto.setId(post.getId());
-        dto.setTitle(post.getTitle());
-        dto.setDescription(post.getDescription());
-        dto.setContent(post.getContent());
-        return dto;
+    private void flushUpdates(List<PostDto> updates, List<Integer> indexes, List<PostBatchResult> results) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        int[] counts = postBatchRepo.updateAll(updates);
+        for (int i = 0; i < updates.size(); i++) {
+            // drivers may answer SUCCESS_NO_INFO (-2) for a batched statement, only 0 means "no such row"
+            PostDto post = updates.get(i);
+            String status = counts[i] == 0 ? PostBatchResult.NOT_FOUND : PostBatchResult.UPDATED;
+            results.add(new PostBatchResult(indexes.get(i), post.getId(), status, null));
+            if (counts[i] != 0) {
+                searchIndex.index(post.getId(), post.getTitle(), post.getDescription(), post.getContent());
+            }
+        }
+        updates.clear();
+        indexes.clear();
     }
 
 }
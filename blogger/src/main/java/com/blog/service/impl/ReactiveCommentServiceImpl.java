@@ -0,0 +1,52 @@
+package com.blog.service.impl;
+
+import com.blog.payload.CommentDto;
+import com.blog.service.ReactiveCommentService;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+@Service
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveCommentServiceImpl implements ReactiveCommentService {
+
+    private DatabaseClient databaseClient;
+
+    // same bound as the MVC comment endpoints
+    @Value("${app.comments.max-page-size}")
+    private int maxPageSize;
+
+    public ReactiveCommentServiceImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Flux<CommentDto> getCommentsByPostId(long postId, int pageNo, int pageSize) {
+        int limit = PageBounds.limit(pageNo, pageSize, maxPageSize);
+        return databaseClient.sql("select id, name, email, body from comments where post_id = :postId"
+                        + " order by id limit :limit offset :offset")
+                .bind("postId", postId)
+                .bind("limit", limit)
+                .bind("offset", (long) pageNo * limit)
+                .map((row, meta) -> mapToDto(row))
+                .all();
+    }
+
+    @Override
+    public Flux<CommentDto> getAllComments(int pageNo, int pageSize) {
+        int limit = PageBounds.limit(pageNo, pageSize, maxPageSize);
+        return databaseClient.sql("select id, name, email, body from comments order by id limit :limit offset :offset")
+                .bind("limit", limit)
+                .bind("offset", (long) pageNo * limit)
+                .map((row, meta) -> mapToDto(row))
+                .all();
+    }
+
+    private CommentDto mapToDto(Row row) {
+        return new CommentDto(row.get("id", Long.class), row.get("name", String.class),
+                row.get("email", String.class), row.get("body", String.class));
+    }
+}
@@ -0,0 +1,86 @@
+package com.blog.service.impl;
+
+import com.blog.exception.BlogAPIException;
+import com.blog.exception.ResourceNotFoundException;
+import com.blog.payload.PostDto;
+import com.blog.payload.PostSummaryDto;
+import com.blog.service.ReactivePostService;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Set;
+
+@Service
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactivePostServiceImpl implements ReactivePostService {
+
+    // sortBy ends up in the SQL text, so only real columns are accepted
+    private static final Set<String> SORT_COLUMNS = Set.of("id", "title", "description", "content");
+
+    private DatabaseClient databaseClient;
+    private CommentCounter commentCounter;
+
+    @Value("${app.reactive.max-page-size}")
+    private int maxPageSize;
+
+    public ReactivePostServiceImpl(DatabaseClient databaseClient, CommentCounter commentCounter) {
+        this.databaseClient = databaseClient;
+        this.commentCounter = commentCounter;
+    }
+
+    @Override
+    public Mono<PostDto> getPostById(long id) {
+        return databaseClient.sql("select id, title, description, content, version, updated_at from posts where id = :id and deleting = false")
+                .bind("id", id)
+                .map((row, meta) -> mapToDto(row))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Post not found with id: " + id)));
+    }
+
+    @Override
+    public Flux<PostDto> getAllPosts(int pageNo, int pageSize, String sortBy, String sortDir) {
+        return page("select id, title, description, content, version, updated_at from posts where deleting = false", pageNo, pageSize, sortBy, sortDir)
+                .map((row, meta) -> mapToDto(row))
+                .all();
+    }
+
+    @Override
+    public Flux<PostSummaryDto> getPostSummaries(int pageNo, int pageSize, String sortBy, String sortDir) {
+        return page("select id, title, description, comment_count from posts where deleting = false", pageNo, pageSize, sortBy, sortDir)
+                .map((row, meta) -> new PostSummaryDto(row.get("id", Long.class), row.get("title", String.class),
+                        row.get("description", String.class), row.get("comment_count", Long.class)))
+                .all()
+                // plus the comments not flushed yet, like PostServiceImpl.getPostSummaries
+                .map(summary -> {
+                    summary.setCommentCount(summary.getCommentCount() + commentCounter.pending(summary.getId()));
+                    return summary;
+                });
+    }
+
+    private DatabaseClient.GenericExecuteSpec page(String select, int pageNo, int pageSize, String sortBy, String sortDir) {
+        if (!SORT_COLUMNS.contains(sortBy)) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Cannot sort posts by: " + sortBy);
+        }
+        String direction = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? "asc" : "desc";
+        int limit = PageBounds.limit(pageNo, pageSize, maxPageSize);
+        // id breaks ties so pages do not overlap when the sort column has duplicates
+        return databaseClient.sql(select + " order by " + sortBy + " " + direction + ", id " + direction
+                        + " limit :limit offset :offset")
+                .bind("limit", limit)
+                .bind("offset", (long) pageNo * limit);
+    }
+
+    private PostDto mapToDto(Row row) {
+        return new PostDto(row.get("id", Long.class), row.get("title", String.class),
+                row.get("description", String.class), row.get("content", String.class),
+                row.get("version", Long.class), row.get("updated_at", Instant.class));
+    }
+}
@@ -0,0 +1,39 @@
+package com.blog.config;
+
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// /actuator: sign-up is open, so a plain user only gets health; metrics, caches (and prometheus) need ADMIN.
+// Tests run without the Prometheus registry, so that endpoint does not exist here
+@BlogIntegrationTest
+class ActuatorSecurityTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser
+    void userGetsHealthOnly() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/caches")).andExpect(status().isForbidden());
+        mockMvc.perform(delete("/actuator/caches")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void adminGetsTheRest() throws Exception {
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isOk());
+        // hibernate-micrometer
+        mockMvc.perform(get("/actuator/metrics/hibernate.sessions.open")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/caches")).andExpect(status().isOk());
+        mockMvc.perform(delete("/actuator/caches")).andExpect(status().isNoContent());
+    }
+}
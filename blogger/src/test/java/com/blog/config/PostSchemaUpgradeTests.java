@@ -0,0 +1,46 @@
+package com.blog.config;
+
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// posts.title of a database created before it was NOT NULL
+@BlogIntegrationTest
+class PostSchemaUpgradeTests {
+
+    @Autowired
+    private PostSchemaUpgrade upgrade;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from posts");
+    }
+
+    @Test
+    void nullTitlesBecomeEmptyAndTheColumnNotNull() {
+        jdbcTemplate.execute("alter table posts modify title varchar(255) null");
+        jdbcTemplate.update("insert into posts (title, description, content, version) values (null, 'd', 'c', 0)");
+
+        upgrade.afterPropertiesSet();
+
+        assertThat(jdbcTemplate.queryForList("select title from posts", String.class)).containsExactly("");
+        assertThatThrownBy(() -> jdbcTemplate.update(
+                "insert into posts (title, description, content, version) values (null, 'd', 'c', 0)"))
+                .hasMessageContaining("title");
+    }
+
+    @Test
+    void titleKeysetQueriesUseTheTitleIndex() {
+        String plan = jdbcTemplate.queryForObject("explain select id from posts where title >= 'a' and (title > 'a' or id > 1) "
+                + "order by title, id limit 10", String.class);
+        assertThat(plan).containsIgnoringCase("idx_posts_title_id");
+    }
+}
@@ -0,0 +1,193 @@
+package com.blog.config;
+
+import com.blog.entity.Post;
+import com.blog.payload.CommentDto;
+import com.blog.payload.PostDto;
+import com.blog.payload.PostSummaryDto;
+import com.blog.payload.VersionedBody;
+import com.blog.service.CommentService;
+import com.blog.service.PostService;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Routing between two in-memory H2 databases: the context's own database is the primary, "blog_replica" the replica.
+// Replication is a snapshot the tests take themselves (replicate()), so until then the replica lags behind.
+// IFEXISTS makes the replica pool fail to connect once the replica database is shut down
+@BlogIntegrationTest(properties = {
+        "app.datasource.replicas.enabled=true",
+        "app.datasource.replicas.urls=" + ReadReplicaRoutingTests.REPLICA_URL + ";IFEXISTS=TRUE",
+        "app.datasource.replicas.connection-timeout-ms=500",
+        "app.datasource.replicas.health-check-interval-ms=3600000",
+        "app.datasource.replicas.read-your-writes-ms=60000",
+        // would read the still empty replica
+        "app.search.rebuild-on-startup=false"
+})
+class ReadReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:blog_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static Connection replica;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaDataSource;
+
+    // outside a transaction, so on the primary
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Post post;
+
+    // before the context, so the replica pool finds the database
+    @BeforeAll
+    static void startReplica() throws SQLException {
+        replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+    }
+
+    @AfterAll
+    static void stopReplica() throws SQLException {
+        if (!replica.isClosed()) {
+            replica.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        post = fixture.post("Replicated");
+        replicate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        fixture.clear();
+    }
+
+    @Test
+    void readOnlyServiceMethodsReadTheReplica() throws Exception {
+        fixture.post("Not replicated yet");
+
+        assertThat(summaryTitles()).containsExactly("Replicated");
+
+        replicate();
+        assertThat(summaryTitles()).containsExactly("Replicated", "Not replicated yet");
+    }
+
+    @Test
+    void cachedPostAndUpdatesUseThePrimary() {
+        Post fresh = fixture.post("Primary only");
+
+        assertThat(postService.getPostById(fresh.getId()).getTitle()).isEqualTo("Primary only");
+        assertThat(postService.getAllPosts(0, 10, "id", "asc")).extracting(PostDto::getTitle)
+                .containsExactly("Replicated", "Primary only");
+
+        PostDto edit = new PostDto();
+        edit.setTitle("Edited");
+        edit.setDescription("Edited post");
+        edit.setContent("Edited content");
+        assertThat(postService.updatePost(fresh.getId(), edit, 0L).getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void writerReadsOwnWritesFromThePrimary() throws Exception {
+        signIn("writer");
+        commentService.createComment(post.getId(), comment());
+        assertThat(commentService.getCommentsByPostId(post.getId(), 0, 10)).hasSize(1);
+
+        signIn("someone-else");
+        assertThat(commentService.getCommentsByPostId(post.getId(), 0, 10)).isEmpty();
+
+        replicate();
+        assertThat(commentService.getCommentsByPostId(post.getId(), 0, 10)).hasSize(1);
+    }
+
+    @Test
+    void commentVersionIsReadWithThePageItDescribes() throws Exception {
+        signIn("writer");
+        commentService.createComment(post.getId(), comment());
+
+        signIn("someone-else");
+        VersionedBody<?> comments = commentService.getVersionedCommentsByPostId(post.getId(), null, 0, 10, stamp -> false);
+        // both from the replica, which has neither the comment nor its version yet
+        assertThat((List<?>) comments.getBody()).isEmpty();
+        assertThat(comments.getStamp().getEtag()).isEqualTo("0-0-0");
+    }
+
+    @Test
+    void readsFailOverToThePrimaryWhileTheReplicaIsDown() throws Exception {
+        fixture.post("Not replicated yet");
+        try (Statement statement = replica.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+
+        replicaDataSource.checkHealth();
+        assertThat(replicaDataSource.healthyReplicas()).isZero();
+        assertThat(summaryTitles()).containsExactly("Replicated", "Not replicated yet");
+
+        replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+        replicate();
+        // the pool retries connecting in the background with a backoff, give it a few health checks
+        for (int i = 0; i < 20 && replicaDataSource.healthyReplicas() == 0; i++) {
+            replicaDataSource.checkHealth();
+        }
+        assertThat(replicaDataSource.healthyReplicas()).isOne();
+    }
+
+    private List<String> summaryTitles() {
+        return postService.getPostSummaries(0, 10, "id", "asc").stream().map(PostSummaryDto::getTitle).toList();
+    }
+
+    // copies the primary as it is now over the replica
+    private void replicate() throws Exception {
+        Path script = Files.createTempFile("blog-replica", ".sql");
+        try {
+            jdbcTemplate.execute("SCRIPT TO '" + script + "'");
+            try (Statement statement = replica.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                statement.execute("RUNSCRIPT FROM '" + script + "'");
+            }
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    private static void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+    }
+
+    private static CommentDto comment() {
+        CommentDto comment = new CommentDto();
+        comment.setName("Reader");
+        comment.setEmail("reader@example.com");
+        comment.setBody("Replicated comment");
+        return comment;
+    }
+}
@@ -0,0 +1,120 @@
+package com.blog.config;
+
+import com.blog.security.UserPrincipalCache;
+import com.blog.testing.BlogIntegrationTest;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// spring.threads.virtual.enabled: connections are handed out through ConnectionLimitingDataSource, and no
+// cache load holds a monitor (a virtual thread waiting for the database in one would pin its carrier)
+@BlogIntegrationTest(properties = {"spring.threads.virtual.enabled=true", "app.datasource.connection-limit=2"})
+class VirtualThreadTests {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void connectionsQueueAtTheLimitInsteadOfInThePool() throws Exception {
+        ConnectionLimitingDataSource limited = dataSource.unwrap(ConnectionLimitingDataSource.class);
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+        AtomicInteger maxWaitingInPool = new AtomicInteger();
+        AtomicInteger maxWaitingAtLimit = new AtomicInteger();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                tasks.add(threads.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        maxWaitingInPool.accumulateAndGet(pool.getHikariPoolMXBean().getThreadsAwaitingConnection(), Math::max);
+                        maxWaitingAtLimit.accumulateAndGet(limited.waiting(), Math::max);
+                        connection.createStatement().execute("select 1");
+                        Thread.sleep(5);
+                        inUse.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        }
+        assertThat(maxInUse).hasValueLessThanOrEqualTo(2);
+        assertThat(maxWaitingAtLimit).hasPositiveValue();
+        assertThat(maxWaitingInPool).hasValue(0);
+
+        mockMvc.perform(get("/api/posts")).andExpect(status().isOk());
+    }
+
+    @Test
+    void postCacheLoadsDoNotPinTheirCarrier() throws Exception {
+        CacheConfig.LoadSafeCaffeineCache cache = new CacheConfig.LoadSafeCaffeineCache("pinning", Caffeine.newBuilder().build());
+        loadsRunTogether(block -> cache.get(new Object(), () -> {
+            block.run();
+            return "loaded";
+        }));
+    }
+
+    @Test
+    void principalLoadsDoNotPinTheirCarrier() throws Exception {
+        UserPrincipalCache cache = new UserPrincipalCache(100, 60, new SimpleMeterRegistry());
+        AtomicInteger users = new AtomicInteger();
+        loadsRunTogether(block -> cache.get("user" + users.incrementAndGet() + "@example.com", subject -> {
+            block.run();
+            return new User(subject, "", List.of());
+        }));
+    }
+
+    // loads blocked until all have started, more of them than there are carriers (one per core, and a few
+    // added to make up for blocking file I/O): loads that pin their carrier leave the rest unable to start
+    private static void loadsRunTogether(Consumer<Runnable> load) throws Exception {
+        int loads = 64;
+        CountDownLatch started = new CountDownLatch(loads);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable block = () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < loads; i++) {
+                tasks.add(threads.submit(() -> load.accept(block)));
+            }
+            boolean allStarted = started.await(5, TimeUnit.SECONDS);
+            release.countDown();
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+            assertThat(allStarted).as("all loads running at once").isTrue();
+        }
+    }
+}
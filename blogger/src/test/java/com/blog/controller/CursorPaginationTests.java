@@ -0,0 +1,93 @@
+package com.blog.controller;
+
+import com.blog.entity.Post;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// GET /api/posts?cursor=: following nextCursor visits every post once, in order, also when titles repeat
+// or are empty
+@BlogIntegrationTest
+class CursorPaginationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // in title, id order
+    private List<Long> byTitle;
+
+    @BeforeEach
+    void setUp() {
+        fixture.clear();
+        Post empty = fixture.post("");
+        Post emptyToo = fixture.post("");
+        Post beta = fixture.post("Beta");
+        Post alpha = fixture.post("Alpha");
+        Post betaToo = fixture.post("Beta");
+        byTitle = List.of(empty.getId(), emptyToo.getId(), alpha.getId(), beta.getId(), betaToo.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    void titleAscendingVisitsEveryPostOnce() throws Exception {
+        for (int pageSize = 1; pageSize <= 4; pageSize++) {
+            assertThat(walk("title", "asc", pageSize)).as("pageSize " + pageSize).isEqualTo(byTitle);
+        }
+    }
+
+    @Test
+    void titleDescendingVisitsEveryPostOnce() throws Exception {
+        List<Long> expected = new ArrayList<>(byTitle);
+        Collections.reverse(expected);
+        for (int pageSize = 1; pageSize <= 4; pageSize++) {
+            assertThat(walk("title", "desc", pageSize)).as("pageSize " + pageSize).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void idOrderIsUnaffected() throws Exception {
+        List<Long> expected = new ArrayList<>(byTitle);
+        Collections.sort(expected);
+        assertThat(walk("id", "asc", 4)).isEqualTo(expected);
+    }
+
+    private List<Long> walk(String sortBy, String sortDir, int pageSize) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            String body = mockMvc.perform(get("/api/posts").param("cursor", cursor).param("pageSize", String.valueOf(pageSize))
+                            .param("sortBy", sortBy).param("sortDir", sortDir))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(body);
+            page.get("content").forEach(post -> ids.add(post.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            assertThat(ids.size()).as("pages never end").isLessThanOrEqualTo(byTitle.size());
+        }
+        return ids;
+    }
+}
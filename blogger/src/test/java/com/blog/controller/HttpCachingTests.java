@@ -0,0 +1,107 @@
+package com.blog.controller;
+
+import com.blog.entity.Comment;
+import com.blog.entity.Post;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// ETag / Last-Modified / Cache-Control on GET /api/posts/{id} and GET /api/comments/{postId}
+@BlogIntegrationTest(properties = "app.http-cache.max-age-seconds=30")
+class HttpCachingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    private Post post;
+
+    private Comment comment;
+
+    @BeforeEach
+    void setUp() {
+        post = fixture.post("Caching");
+        comment = fixture.comments(post, 1).get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    void postHasValidatorsAndCacheControl() throws Exception {
+        mockMvc.perform(get("/api/posts/" + post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "max-age=30, must-revalidate, public"))
+                .andExpect(content().json("{\"title\":\"Caching\"}"));
+    }
+
+    @Test
+    void revalidatesPostWithEtagOrDate() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/posts/" + post.getId())).andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+        String lastModified = first.getResponse().getHeader("Last-Modified");
+
+        mockMvc.perform(get("/api/posts/" + post.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(header().string("Cache-Control", "max-age=30, must-revalidate, public"))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/posts/" + post.getId()).header("If-Modified-Since", lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/posts/" + post.getId()).header("If-None-Match", "\"7\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void updateChangesPostEtag() throws Exception {
+        mockMvc.perform(put("/api/posts?postId=" + post.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Changed\",\"description\":\"Changed post\",\"content\":\"Changed content\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/posts/" + post.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(content().json("{\"title\":\"Changed\"}"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void commentEtagChangesWhenCommentsChange() throws Exception {
+        String url = "/api/comments/" + post.getId();
+        String etag = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get(url).header("If-None-Match", etag)).andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/comments?postId=" + post.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"other\",\"email\":\"other@example.com\",\"body\":\"second\"}"))
+                .andExpect(status().isCreated());
+        String afterCreate = mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+        assertThat(afterCreate).isNotEqualTo(etag);
+
+        mockMvc.perform(delete("/api/comments/" + comment.getId())).andExpect(status().isOk());
+        mockMvc.perform(get(url).header("If-None-Match", afterCreate)).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,87 @@
+package com.blog.controller;
+
+import com.blog.entity.Post;
+import com.blog.search.PostSearchIndex;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A negative pageNo or a pageSize below 1 is the client's mistake (400), on the MVC and the reactive
+// endpoints alike, and never reaches PageRequest or the SQL. So is a search page past app.search.max-results
+@BlogIntegrationTest
+class PagingParameterTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private PostSearchIndex searchIndex;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        post = fixture.post("Paged");
+        fixture.comments(post, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/posts?pageNo=-1",
+            "/api/posts?pageSize=0",
+            "/api/posts?pageSize=-5&view=summary",
+            "/api/posts?pageNo=-1&view=summary",
+            "/api/posts?cursor=&pageSize=0",
+            "/api/comments?pageNo=-1",
+            "/api/comments?pageSize=0",
+            "/api/comments?cursor=&pageSize=-1",
+            "/api/comments/{postId}?pageNo=-1",
+            "/api/comments/{postId}?pageSize=0",
+            "/api/reactive/posts?pageNo=-1",
+            "/api/reactive/posts?pageSize=0",
+            "/api/reactive/posts?pageSize=-1&view=summary",
+            "/api/reactive/comments?pageNo=-1",
+            "/api/reactive/comments?pageSize=0",
+            "/api/reactive/comments/{postId}?pageSize=-1",
+            "/api/posts/search?q=paged&pageNo=-1",
+            // (pageNo + 1) * pageSize past the search depth, and past Integer.MAX_VALUE
+            "/api/posts/search?q=paged&pageNo=10&pageSize=100",
+            "/api/posts/search?q=paged&pageNo=2147483647&pageSize=100",
+            "/api/posts/search?q=paged&pageNo=21474836&pageSize=100",
+    })
+    void invalidPagingIsABadRequest(String url) throws Exception {
+        mockMvc.perform(get(url.replace("{postId}", String.valueOf(post.getId()))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void lastSearchPageWithinTheLimitIsServed() throws Exception {
+        // the fixture writes through the repository, past the index
+        searchIndex.rebuild();
+        mockMvc.perform(get("/api/posts/search?q=paged&pageNo=9&pageSize=100"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+        mockMvc.perform(get("/api/posts/search?q=paged&pageNo=0&pageSize=100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Paged"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.blog.controller;
+
+import com.blog.entity.Post;
+import com.blog.repository.CommentRepository;
+import com.blog.repository.PostRepository;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// POST and DELETE /api/posts/batch: one result per item in request order, a bad item does not fail the others
+@BlogIntegrationTest(properties = "app.posts.delete.purge-threshold=10")
+@WithMockUser(roles = "ADMIN")
+class PostBatchTests {
+
+    private static final String VALID = "{\"title\":\"Batched\",\"description\":\"Batched post\",\"content\":\"Batched content\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    void nullItemIsReportedInvalid() throws Exception {
+        mockMvc.perform(post("/api/posts/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + VALID + ", null, {\"title\":\"x\"}, " + VALID + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].status").value(contains("CREATED", "INVALID", "INVALID", "CREATED")))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].message").value("item must not be null"));
+
+        assertThat(postRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void nullNdjsonLineIsReportedInvalid() throws Exception {
+        mockMvc.perform(post("/api/posts/batch").contentType(MediaType.APPLICATION_NDJSON)
+                        .content(VALID + "\nnull\n" + VALID + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].status").value(contains("CREATED", "INVALID", "CREATED")));
+
+        assertThat(postRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void postsOverThePurgeThresholdAreLeftToThePurger() throws Exception {
+        Post small = fixture.post("Small");
+        fixture.comments(small, 10);
+        Post big = fixture.post("Big");
+        fixture.comments(big, 11);
+
+        mockMvc.perform(delete("/api/posts/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + small.getId() + ", " + big.getId() + ", " + (big.getId() + 100) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].status").value(contains("DELETED", "DELETING", "NOT_FOUND")));
+        // hidden at once, gone once PostPurger is done
+        assertThat(postRepository.findById(big.getId())).isEmpty();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!postRepository.findDeletingIds().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(postRepository.findDeletingIds()).isEmpty();
+        assertThat(commentRepository.count()).isZero();
+    }
+}
@@ -0,0 +1,127 @@
+package com.blog.controller;
+
+import com.blog.config.CacheConfig;
+import com.blog.entity.Post;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The posts and postPages caches in front of PostService (CacheConfig): a write evicts the post it changed,
+// by id, and every page, and leaves the other posts cached. Gets are counted under cache.gets
+@BlogIntegrationTest
+class PostCacheTests {
+
+    private static final SimpleKey FIRST_PAGE = new SimpleKey(0, 10, "id", "asc");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Post post;
+    private Post other;
+    private Cache posts;
+    private Cache pages;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        post = fixture.post("Cached");
+        other = fixture.post("Other");
+        posts = cacheManager.getCache(CacheConfig.POSTS);
+        pages = cacheManager.getCache(CacheConfig.POST_PAGES);
+        mockMvc.perform(get("/api/posts/" + post.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/posts/" + other.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/posts?pageNo=0&pageSize=10")).andExpect(status().isOk());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    void readsAreCountedAsHitsAndMisses() throws Exception {
+        double hits = gets("hit");
+        double misses = gets("miss");
+        long id = fixture.post("Uncached").getId();
+
+        mockMvc.perform(get("/api/posts/" + id)).andExpect(status().isOk());
+        assertThat(gets("miss")).isEqualTo(misses + 1);
+
+        // encodedPosts answers before the posts cache is asked: without the encoded body, the DTO is a hit
+        cacheManager.getCache(CacheConfig.ENCODED_POSTS).evict(id);
+        mockMvc.perform(get("/api/posts/" + id)).andExpect(status().isOk());
+        assertThat(gets("hit")).isEqualTo(hits + 1);
+        assertThat(gets("miss")).isEqualTo(misses + 1);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void createEvictsThePagesOnly() throws Exception {
+        mockMvc.perform(post("/api/posts").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Created\",\"description\":\"Created post\",\"content\":\"Created content\"}"))
+                .andExpect(status().isCreated());
+
+        assertThat(pages.get(FIRST_PAGE)).isNull();
+        assertThat(posts.get(post.getId())).isNotNull();
+        mockMvc.perform(get("/api/posts?pageNo=0&pageSize=10"))
+                .andExpect(jsonPath("$[*].title", hasItem("Created")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void updateEvictsThatPostAndThePages() throws Exception {
+        mockMvc.perform(put("/api/posts?postId=" + post.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated\",\"description\":\"Updated post\",\"content\":\"Updated content\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(posts.get(post.getId())).isNull();
+        assertThat(posts.get(other.getId())).isNotNull();
+        assertThat(pages.get(FIRST_PAGE)).isNull();
+        mockMvc.perform(get("/api/posts/" + post.getId())).andExpect(jsonPath("$.title").value("Updated"));
+        mockMvc.perform(get("/api/posts?pageNo=0&pageSize=10")).andExpect(jsonPath("$[0].title").value("Updated"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void deleteEvictsThatPostAndThePages() throws Exception {
+        mockMvc.perform(delete("/api/posts/" + post.getId())).andExpect(status().isOk());
+
+        assertThat(posts.get(post.getId())).isNull();
+        assertThat(posts.get(other.getId())).isNotNull();
+        assertThat(pages.get(FIRST_PAGE)).isNull();
+        mockMvc.perform(get("/api/posts/" + post.getId()))
+                .andExpect(jsonPath("$.message").value("Post not found with id: " + post.getId()));
+        mockMvc.perform(get("/api/posts?pageNo=0&pageSize=10")).andExpect(jsonPath("$[0].title").value("Other"));
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", CacheConfig.POSTS).tag("result", result).functionCounter().count();
+    }
+}
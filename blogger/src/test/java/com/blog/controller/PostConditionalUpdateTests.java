@@ -0,0 +1,110 @@
+package com.blog.controller;
+
+import com.blog.entity.Post;
+import com.blog.search.PostSearchIndex;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// If-Match on PUT /api/posts and the versioned PATCH
+@BlogIntegrationTest
+@WithMockUser(roles = "ADMIN")
+class PostConditionalUpdateTests {
+
+    private static final String FULL_BODY = "{\"title\":\"Edited\",\"description\":\"Edited post\",\"content\":\"Edited content\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private PostSearchIndex searchIndex;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        post = fixture.post("Original");
+        searchIndex.index(post.getId(), post.getTitle(), post.getDescription(), post.getContent());
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchIndex.remove(post.getId());
+        fixture.clear();
+    }
+
+    @Test
+    void putWithCurrentVersion() throws Exception {
+        mockMvc.perform(put("/api/posts?postId=" + post.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(FULL_BODY))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.title").value("Edited"));
+    }
+
+    @Test
+    void putWithStaleVersionIsRejected() throws Exception {
+        mockMvc.perform(put("/api/posts?postId=" + post.getId()).header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON).content(FULL_BODY)).andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/posts?postId=" + post.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(FULL_BODY))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/posts?postId=" + post.getId()).header("If-Match", "W/\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(FULL_BODY))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void putWithoutIfMatchStillWorks() throws Exception {
+        mockMvc.perform(put("/api/posts?postId=" + post.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content(FULL_BODY))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+    }
+
+    @Test
+    void patchUpdatesOnlyGivenFields() throws Exception {
+        mockMvc.perform(patch("/api/posts?postId=" + post.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Patched title\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        mockMvc.perform(get("/api/posts/" + post.getId()))
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.title").value("Patched title"))
+                .andExpect(jsonPath("$.content").value("Original content"));
+        mockMvc.perform(get("/api/posts/search?q=patched"))
+                .andExpect(jsonPath("$[0].id").value(post.getId()))
+                .andExpect(jsonPath("$[0].title").value("Patched title"));
+    }
+
+    @Test
+    void patchNeedsCurrentVersion() throws Exception {
+        mockMvc.perform(patch("/api/posts?postId=" + post.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Patched title\"}"))
+                .andExpect(status().isPreconditionRequired());
+        mockMvc.perform(patch("/api/posts?postId=" + post.getId()).header("If-Match", "\"5\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Patched title\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/api/posts?postId=" + post.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"x\"}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,108 @@
+package com.blog.controller;
+
+import com.blog.entity.Post;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// GET /api/posts/export: NDJSON written in chunks of app.export.chunk-size, with the long async timeout
+// on this request only
+@BlogIntegrationTest(properties = "app.export.chunk-size=2")
+class PostExportTests {
+
+    // app.export.timeout
+    private static final Duration EXPORT_TIMEOUT = Duration.ofHours(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void everyPostIsStreamedAsOneLine() throws Exception {
+        Post first = fixture.post("First");
+        fixture.comments(first, 2);
+        fixture.post("Second");
+        fixture.post("Third");
+
+        MvcResult started = mockMvc.perform(get("/api/posts/export?includeComments=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(EXPORT_TIMEOUT.toMillis());
+
+        MvcResult done = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+        String[] lines = done.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).contains("\"title\":\"First\"", "\"body\":\"body 0\"", "\"body\":\"body 1\"");
+        assertThat(lines[1]).contains("\"title\":\"Second\"", "\"comments\":[]");
+        assertThat(lines[2]).contains("\"title\":\"Third\"");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void eachPostGetsOnlyItsOwnComments() throws Exception {
+        Post first = fixture.post("First");
+        Post second = fixture.post("Second");
+        Post third = fixture.post("Third");
+        // inserted out of post order, within and across the chunks of two
+        fixture.comments(third, 0, 1);
+        fixture.comments(second, 2, 2);
+        fixture.comments(first, 4, 1);
+        fixture.comments(third, 5, 1);
+
+        MvcResult started = mockMvc.perform(get("/api/posts/export?includeComments=true")).andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsString().split("\n");
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).contains("\"body\":\"body 4\"").doesNotContain("body 0", "body 2", "body 3", "body 5");
+        assertThat(lines[1]).contains("\"body\":\"body 2\"", "\"body\":\"body 3\"").doesNotContain("body 0", "body 4", "body 5");
+        assertThat(lines[2]).contains("\"body\":\"body 0\"", "\"body\":\"body 5\"").doesNotContain("body 2", "body 3", "body 4");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void commentsAreLeftOutUnlessRequested() throws Exception {
+        fixture.comments(fixture.post("First"), 1);
+
+        MvcResult started = mockMvc.perform(get("/api/posts/export")).andReturn();
+        String body = mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsString();
+
+        assertThat(body).contains("\"title\":\"First\"").doesNotContain("comments");
+    }
+
+    @Test
+    void otherAsyncEndpointsKeepTheDefaultTimeout() throws Exception {
+        MvcResult signin = mockMvc.perform(post("/api/auth/signin").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usernameOrEmail\":\"nobody\",\"password\":\"password\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(signin.getRequest().getAsyncContext().getTimeout()).isNotEqualTo(EXPORT_TIMEOUT.toMillis());
+    }
+}
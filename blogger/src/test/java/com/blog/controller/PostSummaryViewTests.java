@@ -0,0 +1,83 @@
+package com.blog.controller;
+
+import com.blog.entity.Post;
+import com.blog.service.impl.CommentCounter;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// GET /api/posts?view=summary: id, title, description and comment count of each post, from
+// PostRepository.findSummaries, without the content column
+@BlogIntegrationTest
+class PostSummaryViewTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private CommentCounter commentCounter;
+
+    private Post first;
+
+    @BeforeEach
+    void setUp() {
+        first = fixture.post("Alpha", "The full body of the first post");
+        fixture.post("Bravo", "The full body of the second post");
+        fixture.post("Charlie", "The full body of the third post");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    void summariesLeaveOutTheContent() throws Exception {
+        mockMvc.perform(get("/api/posts?pageNo=0&pageSize=10&view=summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].id").value(first.getId()))
+                .andExpect(jsonPath("$[0].title").value("Alpha"))
+                .andExpect(jsonPath("$[0].description").value("Alpha post"))
+                .andExpect(jsonPath("$[0].commentCount").value(0))
+                .andExpect(jsonPath("$[0].content").doesNotExist());
+
+        // the full view of the same page still carries it
+        mockMvc.perform(get("/api/posts?pageNo=0&pageSize=10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].content").value("The full body of the first post"));
+    }
+
+    @Test
+    void summariesArePagedAndSortedLikeTheFullView() throws Exception {
+        mockMvc.perform(get("/api/posts?pageNo=0&pageSize=2&sortBy=title&sortDir=desc&view=summary"))
+                .andExpect(jsonPath("$[*].title", contains("Charlie", "Bravo")));
+        mockMvc.perform(get("/api/posts?pageNo=1&pageSize=2&sortBy=title&sortDir=desc&view=summary"))
+                .andExpect(jsonPath("$[*].title", contains("Alpha")));
+    }
+
+    @Test
+    void commentCountIncludesCommentsNotFlushedYet() throws Exception {
+        // two in posts.comment_count, one still in memory
+        commentCounter.increment(first.getId());
+        commentCounter.increment(first.getId());
+        commentCounter.flush();
+        commentCounter.increment(first.getId());
+
+        mockMvc.perform(get("/api/posts?pageNo=0&pageSize=1&view=summary"))
+                .andExpect(jsonPath("$[0].commentCount").value(3));
+    }
+}
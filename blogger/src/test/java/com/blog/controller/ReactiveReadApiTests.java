@@ -0,0 +1,87 @@
+package com.blog.controller;
+
+import com.blog.entity.Post;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The /api/reactive endpoints read through R2DBC and must return what the MVC ones return
+@BlogIntegrationTest
+class ReactiveReadApiTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        post = fixture.post("Reactive");
+        fixture.post("Another");
+        fixture.comments(post, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    void listPostsMatchesMvcEndpoint() throws Exception {
+        String mvc = mockMvc.perform(get("/api/posts?pageSize=10&sortBy=title&sortDir=desc"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+        MvcResult result = mockMvc.perform(get("/api/reactive/posts?pageSize=10&sortBy=title&sortDir=desc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mvc, true));
+    }
+
+    @Test
+    void getPostById() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/reactive/posts/" + post.getId()))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Reactive"))
+                .andExpect(jsonPath("$.content").value("Reactive content"));
+    }
+
+    @Test
+    void streamsCommentsAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/reactive/comments/" + post.getId() + "?pageSize=10")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted()).andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.trim().split("\n")).hasSize(3)
+                .allSatisfy(line -> assertThat(line).startsWith("{\"id\":").contains("\"email\":\"user"));
+    }
+
+    @Test
+    void rejectsUnknownSortColumn() throws Exception {
+        mockMvc.perform(get("/api/reactive/posts?sortBy=id;drop table posts"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,186 @@
+package com.blog.controller;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.decoder.Decoder;
+import com.blog.config.CacheConfig;
+import com.blog.entity.Post;
+import com.blog.payload.EncodedBody;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pre-serialized, pre-compressed bodies of GET /api/posts/{id} and GET /api/posts (EncodedResponses).
+// The content column holds 255 characters, so the threshold is lowered for one post to be over it
+@BlogIntegrationTest(properties = "server.compression.min-response-size=256B")
+class ResponseCompressionTests {
+
+    private static final String LONG_CONTENT = "Compressible content. ".repeat(11);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        post = fixture.post("Compressed", LONG_CONTENT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    void postIsSentInTheEncodingTheClientAccepts() throws Exception {
+        MvcResult gzip = mockMvc.perform(get("/api/posts/" + post.getId()).header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().string("ETag", "\"0-gzip\""))
+                .andReturn();
+        byte[] body = gzip.getResponse().getContentAsByteArray();
+        assertThat(body.length).isLessThan(LONG_CONTENT.length());
+        assertThat(gunzip(body)).contains("\"title\":\"Compressed\"");
+
+        mockMvc.perform(get("/api/posts/" + post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json("{\"title\":\"Compressed\",\"content\":\"" + LONG_CONTENT + "\"}"));
+
+        // refused with q=0
+        mockMvc.perform(get("/api/posts/" + post.getId()).header("Accept-Encoding", "gzip;q=0"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void eachEncodingHasItsOwnETagForTheSameVersion() throws Exception {
+        // a client holding the gzip copy revalidates with its tag, and may update with it
+        mockMvc.perform(get("/api/posts/" + post.getId()).header("Accept-Encoding", "gzip").header("If-None-Match", "\"0-gzip\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0\""));
+        mockMvc.perform(get("/api/posts/" + post.getId()).header("Accept-Encoding", "gzip").header("If-None-Match", "\"1-gzip\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0-gzip\""));
+        mockMvc.perform(patch("/api/posts?postId=" + post.getId()).header("If-Match", "\"0-gzip\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Patched\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"1\""));
+    }
+
+    @Test
+    void brotliIsPreferredWhenAccepted() throws Exception {
+        assumeTrue(Brotli4jLoader.isAvailable(), "no native Brotli library for this platform");
+        MvcResult br = mockMvc.perform(get("/api/posts/" + post.getId()).header("Accept-Encoding", "gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "br"))
+                .andReturn();
+        byte[] json = Decoder.decompress(br.getResponse().getContentAsByteArray()).getDecompressedData();
+        assertThat(new String(json, StandardCharsets.UTF_8)).contains("\"title\":\"Compressed\"");
+    }
+
+    @Test
+    void smallBodiesAreNotCompressed() throws Exception {
+        Post small = fixture.post("Small");
+        mockMvc.perform(get("/api/posts/" + small.getId()).header("Accept-Encoding", "gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().json("{\"title\":\"Small\"}"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void updateEvictsTheEncodedPostAndPages() throws Exception {
+        mockMvc.perform(get("/api/posts/" + post.getId()).header("Accept-Encoding", "gzip"));
+        MvcResult page = mockMvc.perform(get("/api/posts?pageNo=0&pageSize=5").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+        assertThat(gunzip(page.getResponse().getContentAsByteArray())).contains("\"title\":\"Compressed\"");
+
+        mockMvc.perform(put("/api/posts?postId=" + post.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Recompressed\",\"description\":\"Compressed post\",\"content\":\"" + LONG_CONTENT + "\"}"))
+                .andExpect(status().isOk());
+
+        MvcResult updated = mockMvc.perform(get("/api/posts/" + post.getId()).header("Accept-Encoding", "gzip"))
+                .andExpect(header().string("ETag", "\"1-gzip\""))
+                .andReturn();
+        assertThat(gunzip(updated.getResponse().getContentAsByteArray())).contains("\"title\":\"Recompressed\"");
+        page = mockMvc.perform(get("/api/posts?pageNo=0&pageSize=5").header("Accept-Encoding", "gzip")).andReturn();
+        assertThat(gunzip(page.getResponse().getContentAsByteArray())).contains("\"title\":\"Recompressed\"");
+    }
+
+    // a reader that missed before a write must not put the old body back after the write's eviction
+    @Test
+    void loadOverlappingAnEvictionIsNotKept() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            for (String name : new String[]{CacheConfig.ENCODED_POSTS, CacheConfig.ENCODED_POST_PAGES}) {
+                Cache cache = cacheManager.getCache(name);
+                CountDownLatch loading = new CountDownLatch(1);
+                CountDownLatch release = new CountDownLatch(1);
+                Future<Object> reader = threads.submit(() -> cache.get(1L, () -> {
+                    loading.countDown();
+                    release.await();
+                    return new EncodedBody("read before the write".getBytes(StandardCharsets.UTF_8), null, null, null);
+                }));
+                loading.await();
+                // what a write does: evict the post, clear the pages
+                Future<?> writer = threads.submit(() -> {
+                    cache.evict(1L);
+                    cache.clear();
+                });
+                release.countDown();
+                reader.get(5, TimeUnit.SECONDS);
+                writer.get(5, TimeUnit.SECONDS);
+
+                assertThat(cache.get(1L)).as(name).isNull();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
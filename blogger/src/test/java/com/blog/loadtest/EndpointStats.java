@@ -0,0 +1,54 @@
+package com.blog.loadtest;
+
+import java.util.Arrays;
+
+// latency samples of one endpoint, recorded by a single worker thread and merged for the report
+class EndpointStats {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private int errors;
+    private boolean sorted;
+
+    void record(long nanos, boolean ok) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        if (!ok) {
+            errors++;
+        }
+        sorted = false;
+    }
+
+    void merge(EndpointStats other) {
+        if (count + other.count > samples.length) {
+            samples = Arrays.copyOf(samples, Math.max(samples.length * 2, count + other.count));
+        }
+        System.arraycopy(other.samples, 0, samples, count, other.count);
+        count += other.count;
+        errors += other.errors;
+        sorted = false;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getErrors() {
+        return errors;
+    }
+
+    // nearest-rank percentile in milliseconds, p in [0, 100]
+    double percentileMillis(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(samples, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * count);
+        return samples[Math.min(Math.max(rank, 1), count) - 1] / 1_000_000.0;
+    }
+}
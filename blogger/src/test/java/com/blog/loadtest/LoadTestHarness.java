@@ -0,0 +1,266 @@
+package com.blog.loadtest;
+
+import com.blog.BloggerApplication;
+import com.blog.search.PostSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Boots the application against in-memory H2 (profiles "h2" and "loadtest"), seeds it and drives a mixed
+// read/write workload over HTTP, then prints throughput and latency percentiles per endpoint.
+// Settings are the loadtest.* keys in application-loadtest.properties, override them as --key=value:
+//   mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--loadtest.threads=32 --loadtest.duration-seconds=120"
+// The load generator shares the JVM and CPUs with the server, so compare runs made on the same machine.
+public class LoadTestHarness {
+
+    private final Environment env;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final List<Long> postIds;
+    private final int users;
+    private final Map<String, Integer> mix;
+    private final int totalWeight;
+
+    LoadTestHarness(Environment env, int port, List<Long> postIds) {
+        this.env = env;
+        this.baseUrl = "http://localhost:" + port;
+        this.postIds = postIds;
+        this.users = env.getRequiredProperty("loadtest.users", Integer.class);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.mix = parseMix(env.getRequiredProperty("loadtest.mix"));
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BloggerApplication.class)
+                .profiles("h2", "loadtest")
+                .run(args);
+        try {
+            Environment env = context.getEnvironment();
+            long seedStart = System.nanoTime();
+            LoadTestSeeder seeder = new LoadTestSeeder(context.getBean(JdbcTemplate.class), context.getBean(PasswordEncoder.class));
+            List<Long> postIds = seeder.seed(
+                    env.getRequiredProperty("loadtest.users", Integer.class),
+                    env.getRequiredProperty("loadtest.posts", Integer.class),
+                    env.getRequiredProperty("loadtest.comments-per-post", Integer.class));
+            // posts were inserted behind the service's back
+            context.getBean(PostSearchIndex.class).rebuild();
+            System.out.printf("Seeded %d posts in %d ms%n", postIds.size(), (System.nanoTime() - seedStart) / 1_000_000);
+
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            String report = new LoadTestHarness(env, port, postIds).run();
+            System.out.println(report);
+            Path reportFile = Paths.get(env.getRequiredProperty("loadtest.report"));
+            if (reportFile.getParent() != null) {
+                Files.createDirectories(reportFile.getParent());
+            }
+            Files.write(reportFile, report.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            context.close();
+        }
+    }
+
+    String run() throws Exception {
+        int threads = env.getRequiredProperty("loadtest.threads", Integer.class);
+        long warmupNanos = env.getRequiredProperty("loadtest.warmup-seconds", Long.class) * 1_000_000_000L;
+        long durationNanos = env.getRequiredProperty("loadtest.duration-seconds", Long.class) * 1_000_000_000L;
+
+        String adminToken = signin(LoadTestSeeder.username(0));
+        // a handful of signed-in users is enough for the writes, every signin costs a BCrypt check
+        List<String> userTokens = new ArrayList<>();
+        for (int i = 0; i < Math.min(threads, 16); i++) {
+            userTokens.add(signin(LoadTestSeeder.username(1 + i % Math.max(users - 1, 1))));
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        // virtual client threads, so hundreds of concurrent users do not need hundreds of OS threads
+        ExecutorService workers = Executors.newFixedThreadPool(threads, Thread.ofVirtual().name("loadtest-", 0).factory());
+        List<Future<Map<String, EndpointStats>>> results = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            String userToken = userTokens.get(i % userTokens.size());
+            results.add(workers.submit(() -> work(adminToken, userToken, measureFrom, end)));
+        }
+        Map<String, EndpointStats> merged = new LinkedHashMap<>();
+        for (String endpoint : mix.keySet()) {
+            merged.put(endpoint, new EndpointStats());
+        }
+        for (Future<Map<String, EndpointStats>> result : results) {
+            result.get().forEach((endpoint, stats) -> merged.get(endpoint).merge(stats));
+        }
+        workers.shutdown();
+        return report(merged, threads, durationNanos / 1_000_000_000.0);
+    }
+
+    private Map<String, EndpointStats> work(String adminToken, String userToken, long measureFrom, long end) {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (String endpoint : mix.keySet()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            String endpoint = pick(random.nextInt(totalWeight));
+            HttpRequest request = request(endpoint, random, adminToken, userToken);
+            boolean ok;
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                ok = response.statusCode() < 400;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long latency = System.nanoTime() - now;
+            if (now >= measureFrom) {
+                stats.get(endpoint).record(latency, ok);
+            }
+        }
+        return stats;
+    }
+
+    private HttpRequest request(String endpoint, ThreadLocalRandom random, String adminToken, String userToken) {
+        long postId = postIds.get(random.nextInt(postIds.size()));
+        switch (endpoint) {
+            case "list-posts":
+                int pages = Math.max(1, Math.min(postIds.size() / 10, 100));
+                return get("/api/posts?pageNo=" + random.nextInt(pages) + "&pageSize=10");
+            case "get-post":
+                return get("/api/posts/" + postId);
+            case "list-comments":
+                return get("/api/comments/" + postId + "?pageNo=0&pageSize=10");
+            case "search":
+                String[] words = LoadTestSeeder.WORDS;
+                return get("/api/posts/search?q=" + words[random.nextInt(words.length)] + "+" + words[random.nextInt(words.length)]);
+            case "create-comment":
+                return post("/api/comments?postId=" + postId, userToken,
+                        json("name", "Load Test", "email", "load@loadtest.local", "body", "Comment written by the load test"));
+            case "create-post":
+                return post("/api/posts", adminToken,
+                        json("title", "New post " + random.nextInt(), "description", "Written by the load test",
+                                "content", "Content of a post written by the load test"));
+            case "signin":
+                return post("/api/auth/signin", null,
+                        json("usernameOrEmail", LoadTestSeeder.username(random.nextInt(users)), "password", LoadTestSeeder.PASSWORD));
+            default:
+                throw new IllegalArgumentException("Unknown endpoint in loadtest.mix: " + endpoint);
+        }
+    }
+
+    private String signin(String username) throws Exception {
+        HttpRequest request = post("/api/auth/signin", null, json("usernameOrEmail", username, "password", LoadTestSeeder.PASSWORD));
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Signin of " + username + " failed: " + response.statusCode() + " " + response.body());
+        }
+        return objectMapper.readTree(response.body()).get("accessToken").asText();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private String json(String... keyValues) {
+        Map<String, String> body = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            body.put(keyValues[i], keyValues[i + 1]);
+        }
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String pick(int roll) {
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("loadtest.mix has no weight left");
+    }
+
+    // "list-posts:40,get-post:20" -> {list-posts=40, get-post=20}
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split(":");
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight > 0) {
+                weights.put(entry[0].trim(), weight);
+            }
+        }
+        return weights;
+    }
+
+    private String report(Map<String, EndpointStats> stats, int threads, double seconds) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Load test: %d threads, %.0f s measured, %d posts, mix %s%n",
+                threads, seconds, postIds.size(), mix));
+        // server.tomcat.threads.max only bounds the platform pool, virtual mode is bounded at the connections
+        String requestThreads = env.getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+                ? "virtual (one per request), connection limit " + env.getProperty("app.datasource.connection-limit")
+                : "platform, tomcat max threads " + env.getProperty("server.tomcat.threads.max");
+        sb.append(String.format("Server: request threads %s, jdbc pool %s, db latency %s ms%n%n", requestThreads,
+                env.getProperty("spring.datasource.hikari.maximum-pool-size"), env.getProperty("loadtest.db-latency-ms")));
+        sb.append(String.format("%-16s %9s %7s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        EndpointStats total = new EndpointStats();
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+            appendRow(sb, entry.getKey(), entry.getValue(), seconds);
+            total.merge(entry.getValue());
+        }
+        appendRow(sb, "total", total, seconds);
+        return sb.toString();
+    }
+
+    private void appendRow(StringBuilder sb, String name, EndpointStats stats, double seconds) {
+        sb.append(String.format("%-16s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, stats.getCount(), stats.getErrors(), stats.getCount() / seconds,
+                stats.percentileMillis(50), stats.percentileMillis(99), stats.percentileMillis(99.9),
+                stats.percentileMillis(100)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.blog.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// fills the empty load-test database through plain JDBC batches, much faster than going through the API
+class LoadTestSeeder {
+
+    static final String PASSWORD = "loadtest";
+    static final String[] WORDS = {
+            "spring", "boot", "java", "mysql", "cache", "index", "query", "thread", "latency", "throughput",
+            "security", "token", "docker", "kubernetes", "reactive", "stream", "batch", "search", "jvm", "garbage"
+    };
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final Random random = new Random(42);
+
+    LoadTestSeeder(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    // returns the ids of the seeded posts
+    List<Long> seed(int users, int posts, int commentsPerPost) {
+        jdbcTemplate.update("insert into roles(name) values ('ROLE_ADMIN'), ('ROLE_USER')");
+        long adminRole = jdbcTemplate.queryForObject("select id from roles where name = 'ROLE_ADMIN'", Long.class);
+        long userRole = jdbcTemplate.queryForObject("select id from roles where name = 'ROLE_USER'", Long.class);
+
+        // every user shares one password, so it is hashed once
+        String hash = passwordEncoder.encode(PASSWORD);
+        List<Object[]> userRows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            userRows.add(new Object[]{username(i) + "@loadtest.local", "Load Test User " + i, hash, username(i)});
+        }
+        jdbcTemplate.batchUpdate("insert into users(email, name, password, username) values (?, ?, ?, ?)", userRows, BATCH_SIZE,
+                (ps, row) -> {
+                    for (int c = 0; c < row.length; c++) {
+                        ps.setObject(c + 1, row[c]);
+                    }
+                });
+        // user0 is the admin, the rest are plain users
+        jdbcTemplate.update("insert into user_roles(user_id, role_id) select id, case when username = ? then ? else ? end from users",
+                username(0), adminRole, userRole);
+
+        List<Object[]> postRows = new ArrayList<>(posts);
+        for (int i = 0; i < posts; i++) {
+            postRows.add(new Object[]{"Load test post " + i + " about " + words(2), "Description " + i + " " + words(4),
+                    "Content " + i + " " + words(25)});
+        }
+        jdbcTemplate.batchUpdate("insert into posts(title, description, content, version, created_at, updated_at) "
+                        + "values (?, ?, ?, 0, current_timestamp, current_timestamp)", postRows, BATCH_SIZE,
+                (ps, row) -> {
+                    ps.setString(1, (String) row[0]);
+                    ps.setString(2, (String) row[1]);
+                    ps.setString(3, (String) row[2]);
+                });
+        List<Long> postIds = jdbcTemplate.queryForList("select id from posts order by id", Long.class);
+
+        List<Object[]> commentRows = new ArrayList<>(BATCH_SIZE);
+        for (Long postId : postIds) {
+            for (int c = 0; c < commentsPerPost; c++) {
+                int user = random.nextInt(users);
+                commentRows.add(new Object[]{"Comment " + c + " " + words(10), username(user) + "@loadtest.local",
+                        "Load Test User " + user, postId});
+                if (commentRows.size() == BATCH_SIZE) {
+                    insertComments(commentRows);
+                }
+            }
+        }
+        insertComments(commentRows);
+        return postIds;
+    }
+
+    private void insertComments(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("insert into comments(body, email, name, post_id, version, created_at, updated_at) "
+                        + "values (?, ?, ?, ?, 0, current_timestamp, current_timestamp)", rows, BATCH_SIZE,
+                (ps, row) -> {
+                    ps.setString(1, (String) row[0]);
+                    ps.setString(2, (String) row[1]);
+                    ps.setString(3, (String) row[2]);
+                    ps.setLong(4, (Long) row[3]);
+                });
+        rows.clear();
+    }
+
+    static String username(int i) {
+        return "user" + i;
+    }
+
+    private String words(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package com.blog.loadtest;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// In-memory H2 answers in microseconds, a real database over the network does not. With
+// loadtest.db-latency-ms > 0 every statement sleeps that long while holding its connection,
+// which turns the harness into an I/O-bound workload (used to compare request threading modes).
+@Configuration
+@Profile("loadtest")
+@ConditionalOnExpression("${loadtest.db-latency-ms:0} > 0")
+public class SimulatedDbLatencyConfig {
+
+    @Bean
+    public static BeanPostProcessor simulatedDbLatencyPostProcessor(@Value("${loadtest.db-latency-ms}") long latencyMs) {
+        QueryExecutionListener sleeper = new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                try {
+                    Thread.sleep(latencyMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+        };
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (beanName.equals("dataSource") && bean instanceof DataSource) {
+                    return ProxyDataSourceBuilder.create((DataSource) bean).name("simulated-latency").listener(sleeper).build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package com.blog.monitoring;
+
+import com.blog.entity.Comment;
+import com.blog.entity.Post;
+import com.blog.repository.CommentRepository;
+import com.blog.repository.PostRepository;
+import com.blog.service.CommentService;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.blog.monitoring.QueryCountAssertions.assertQueryCount;
+import static com.blog.monitoring.QueryCountAssertions.queryCount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Number of SQL statements per endpoint. If one of these fails, the change added or removed
+// queries: check that it was on purpose and update the expected count.
+@BlogIntegrationTest(properties = {
+        "app.query-count.expose-headers=true",
+        "app.posts.delete.purge-threshold=10",
+        "app.posts.delete.purge-chunk-size=4"
+})
+class EndpointQueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        fixture.clear();
+        post = fixture.post("Query count");
+        fixture.comments(post, 3);
+    }
+
+    @Test
+    void getPostById() throws Exception {
+        mockMvc.perform(get("/api/posts/" + post.getId())).andExpect(status().isOk()).andExpect(queryCount(1));
+        // second read comes from the posts cache
+        mockMvc.perform(get("/api/posts/" + post.getId())).andExpect(status().isOk()).andExpect(queryCount(0));
+    }
+
+    @Test
+    void revalidatePostById() throws Exception {
+        // version lookup only, the post is not loaded
+        mockMvc.perform(get("/api/posts/" + post.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified()).andExpect(queryCount(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void patchPost() throws Exception {
+        // the versioned UPDATE only, the post is not read first
+        mockMvc.perform(patch("/api/posts?postId=" + post.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Patched\"}"))
+                .andExpect(status().isNoContent()).andExpect(queryCount(1));
+    }
+
+    @Test
+    void listPostsPage() throws Exception {
+        // page query plus count query, which Spring Data skips when the first page is not full
+        for (int i = 0; i < 5; i++) {
+            fixture.post("Page filler " + i);
+        }
+        mockMvc.perform(get("/api/posts?pageNo=0&pageSize=5")).andExpect(status().isOk()).andExpect(queryCount(2));
+    }
+
+    @Test
+    void listPostSummaries() throws Exception {
+        mockMvc.perform(get("/api/posts?pageNo=0&pageSize=5&view=summary")).andExpect(status().isOk()).andExpect(queryCount(1));
+    }
+
+    @Test
+    void listPostsByCursor() throws Exception {
+        mockMvc.perform(get("/api/posts?cursor=&pageSize=5")).andExpect(status().isOk()).andExpect(queryCount(1));
+    }
+
+    @Test
+    void listCommentsOfPost() throws Exception {
+        // version stamp plus page query
+        mockMvc.perform(get("/api/comments/" + post.getId() + "?pageNo=0&pageSize=10")).andExpect(status().isOk()).andExpect(queryCount(2));
+    }
+
+    @Test
+    void revalidateCommentsOfPost() throws Exception {
+        String etag = mockMvc.perform(get("/api/comments/" + post.getId())).andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/comments/" + post.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified()).andExpect(queryCount(1));
+    }
+
+    @Test
+    @WithMockUser
+    void createComment() throws Exception {
+        // existence check and the insert, the post itself is not loaded
+        mockMvc.perform(post("/api/comments?postId=" + post.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"n\",\"email\":\"n@example.com\",\"body\":\"counted comment\"}"))
+                .andExpect(status().isCreated()).andExpect(queryCount(2));
+    }
+
+    @Test
+    @WithMockUser
+    void deleteComment() throws Exception {
+        Comment comment = commentRepository.findByPostId(post.getId()).get(0);
+        // the comment row (Comment.post stays a proxy) and the delete
+        mockMvc.perform(delete("/api/comments/" + comment.getId())).andExpect(status().isOk()).andExpect(queryCount(2));
+    }
+
+    @Test
+    void commentsOfPostFromService() throws Exception {
+        assertQueryCount(1, () -> commentService.getCommentsByPostId(post.getId(), 0, 10));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void deletePost() throws Exception {
+        // bounded count of the comments, delete all comments, delete post: independent of the number of comments
+        mockMvc.perform(delete("/api/posts/" + post.getId())).andExpect(status().isOk()).andExpect(queryCount(3));
+        assertThat(postRepository.existsById(post.getId())).isFalse();
+        assertThat(commentRepository.countByPostId(post.getId())).isZero();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void deletePostWithManyCommentsIsPurgedInBackground() throws Exception {
+        fixture.comments(post, 3, 9);
+        // bounded count of the comments, mark the post deleting, then PostPurger takes over
+        mockMvc.perform(delete("/api/posts/" + post.getId())).andExpect(status().isAccepted()).andExpect(queryCount(2));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        // hidden at once, deleted when the purge is done
+        assertThat(postRepository.existsById(post.getId())).isFalse();
+        while (!postRepository.findDeletingIds().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(postRepository.findDeletingIds()).isEmpty();
+        assertThat(commentRepository.countByPostId(post.getId())).isZero();
+    }
+}
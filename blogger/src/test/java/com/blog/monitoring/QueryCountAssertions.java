@@ -0,0 +1,37 @@
+package com.blog.monitoring;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+
+// Locks the number of SQL statements an endpoint or a piece of code runs, so a change that
+// adds hidden queries (lazy loads, per-row deletes) fails a test instead of surprising us in prod.
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    // for MockMvc, needs app.query-count.expose-headers=true:
+    //   mockMvc.perform(get("/api/posts/1")).andExpect(queryCount(1));
+    public static ResultMatcher queryCount(int expected) {
+        return header().string(QueryCountFilter.QUERY_COUNT_HEADER, String.valueOf(expected));
+    }
+
+    // for code called directly on the test thread:
+    //   assertQueryCount(2, () -> postService.getPostById(id));
+    public static void assertQueryCount(int expected, ThrowingRunnable action) throws Exception {
+        QueryStats stats = QueryStats.start();
+        try {
+            action.run();
+        } finally {
+            QueryStats.stop();
+        }
+        assertThat(stats.getCount()).as("SQL statements").isEqualTo(expected);
+    }
+
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
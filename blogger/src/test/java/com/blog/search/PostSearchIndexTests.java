@@ -0,0 +1,23 @@
+package com.blog.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// tokens, and so what a query matches, must not depend on the server's default locale
+class PostSearchIndexTests {
+
+    @Test
+    void tokensAreTheSameUnderATurkishLocale() {
+        Locale saved = Locale.getDefault();
+        // dotless i: "TITLE".toLowerCase() is "tıtle" here
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            assertThat(PostSearchIndex.tokenize("TITLE of It")).containsExactly("title", "of", "it");
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+}
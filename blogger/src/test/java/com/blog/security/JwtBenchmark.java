@@ -0,0 +1,84 @@
+package com.blog.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// work done on every authenticated request (header extraction, token check) and on every signin (token generation)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private JwtTokenProvider cachingTokenProvider;
+    private JwtAuthenticationFilter filter;
+    private Authentication authentication;
+    private String token;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = tokenProvider(false);
+        cachingTokenProvider = tokenProvider(true);
+        filter = new JwtAuthenticationFilter();
+        authentication = new UsernamePasswordAuthenticationToken("admin@example.com", null);
+        token = tokenProvider.generateToken(authentication);
+        cachingTokenProvider.verifyToken(token);
+
+        request = new MockHttpServletRequest("GET", "/api/posts");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    private static JwtTokenProvider tokenProvider(boolean verifiedCacheEnabled) {
+        JwtTokenProvider provider = new JwtTokenProvider(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(provider, "jwtSecret", "JWTSecretKey");
+        ReflectionTestUtils.setField(provider, "jwtExpirationlnMs", 604800000);
+        ReflectionTestUtils.setField(provider, "verifiedCacheEnabled", verifiedCacheEnabled);
+        ReflectionTestUtils.setField(provider, "verifiedCacheMaxSize", 10000L);
+        provider.init();
+        return provider;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyTokenUncached() {
+        return tokenProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyTokenCached() {
+        return cachingTokenProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public String getJwtFromRequest() {
+        return filter.getJwtFromRequest(request);
+    }
+}
@@ -0,0 +1,104 @@
+package com.blog.security;
+
+import com.blog.exception.BlogAPIException;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// signin/signup on the hashing pool (PasswordHashingExecutor) and the auth.hashing timers (TimedPasswordEncoder).
+// One thread and one queue slot, so two blocked tasks fill the pool
+@BlogIntegrationTest(properties = {"app.security.hashing.threads=1", "app.security.hashing.queue-capacity=1",
+        "app.security.bcrypt-strength=4"})
+class PasswordHashingTests {
+
+    private static final String SIGNUP = "{\"name\":\"Hashed\",\"username\":\"hashed\",\"email\":\"hashed@example.com\",\"password\":\"secret\"}";
+    private static final String SIGNIN = "{\"usernameOrEmail\":\"hashed\",\"password\":\"secret\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private PasswordHashingExecutor hashingExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    void fullPoolAnswersServiceUnavailable() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // blocked tasks until the pool refuses one (a thread may still be finishing the previous request)
+            boolean full = false;
+            for (int i = 0; i < 10 && !full; i++) {
+                try {
+                    hashingExecutor.submit(() -> {
+                        try {
+                            return release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                } catch (BlogAPIException e) {
+                    full = true;
+                }
+            }
+            assertThat(full).isTrue();
+
+            mockMvc.perform(post("/api/auth/signin").contentType(MediaType.APPLICATION_JSON).content(SIGNIN))
+                    .andExpect(status().isServiceUnavailable());
+            mockMvc.perform(post("/api/auth/signup").contentType(MediaType.APPLICATION_JSON).content(SIGNUP))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void onlyTheHashingIsTimed() throws Exception {
+        fixture.role("ROLE_ACCOUNTANT");
+        long encoded = hashingCount("encode");
+        long matched = hashingCount("matches");
+
+        MvcResult signup = mockMvc.perform(post("/api/auth/signup").contentType(MediaType.APPLICATION_JSON).content(SIGNUP))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(signup)).andExpect(status().isOk());
+        assertThat(hashingCount("encode")).isEqualTo(encoded + 1);
+
+        MvcResult signin = mockMvc.perform(post("/api/auth/signin").contentType(MediaType.APPLICATION_JSON).content(SIGNIN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(signin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").isNotEmpty());
+        assertThat(hashingCount("matches")).isEqualTo(matched + 1);
+    }
+
+    private long hashingCount(String operation) {
+        return meterRegistry.get("auth.hashing").tag("operation", operation).timer().count();
+    }
+}
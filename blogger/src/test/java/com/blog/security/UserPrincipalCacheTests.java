@@ -0,0 +1,124 @@
+package com.blog.security;
+
+import com.blog.entity.Role;
+import com.blog.entity.User;
+import com.blog.repository.RoleRepository;
+import com.blog.repository.UserRepository;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Principals of JWT requests come from UserPrincipalCache; changes to the user or its roles must reach the
+// next request and not wait for the TTL. POST /api/posts/batch with no posts is the admin-only probe
+@BlogIntegrationTest
+class UserPrincipalCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    void demotedAdminLosesTheRoleOnTheNextRequest() throws Exception {
+        User admin = fixture.user("demoted", "ROLE_ADMIN");
+        String token = tokenFor(admin);
+        adminProbe(token).andExpect(status().isOk());
+
+        // only the join table changes
+        admin.setRoles(new HashSet<>(Set.of(fixture.role("ROLE_USER"))));
+        userRepository.save(admin);
+
+        adminProbe(token).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void principalLoadedBeforeTheCommitIsNotKept() throws Exception {
+        User admin = fixture.user("raced", "ROLE_ADMIN");
+        String token = tokenFor(admin);
+        adminProbe(token).andExpect(status().isOk());
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            admin.setRoles(new HashSet<>(Set.of(fixture.role("ROLE_USER"))));
+            userRepository.saveAndFlush(admin);
+            // a request on another connection between the flush and the commit still reads the admin role
+            CompletableFuture.runAsync(() -> principalCache.get(admin.getEmail(), userDetailsService::loadUserByUsername)).join();
+        });
+
+        adminProbe(token).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void renamedRoleIsSeenOnTheNextRequest() throws Exception {
+        User admin = fixture.user("renamed", "ROLE_ADMIN");
+        String token = tokenFor(admin);
+        adminProbe(token).andExpect(status().isOk());
+
+        Role role = fixture.role("ROLE_ADMIN");
+        role.setName("ROLE_FORMER_ADMIN");
+        roleRepository.save(role);
+        try {
+            adminProbe(token).andExpect(status().isForbidden());
+        } finally {
+            role.setName("ROLE_ADMIN");
+            roleRepository.save(role);
+        }
+    }
+
+    @Test
+    void tokenOfADeletedUserIsUnauthorized() throws Exception {
+        User admin = fixture.user("deleted", "ROLE_ADMIN");
+        String token = tokenFor(admin);
+        adminProbe(token).andExpect(status().isOk());
+
+        userRepository.delete(admin);
+
+        adminProbe(token).andExpect(status().isUnauthorized());
+    }
+
+    private String tokenFor(User user) {
+        return tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(user.getEmail(), null));
+    }
+
+    private ResultActions adminProbe(String token) throws Exception {
+        return mockMvc.perform(post("/api/posts/batch").header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON).content("[]"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.blog.service.impl;
+
+import com.blog.entity.Post;
+import com.blog.payload.CommentDto;
+import com.blog.payload.PostSummaryDto;
+import com.blog.service.CommentService;
+import com.blog.service.PostService;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// posts.comment_count through CommentCounter; the scheduled flush is pushed out so the tests flush themselves
+@BlogIntegrationTest(properties = "app.comments.counter.flush-interval-ms=3600000")
+class CommentCounterTests {
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CommentCounter commentCounter;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        commentCounter.flush();
+        post = fixture.post("Counted");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+        commentCounter.flush();
+    }
+
+    @Test
+    void countsAreVisibleBeforeAndAfterFlush() {
+        List<CommentDto> created = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            created.add(commentService.createComment(post.getId(), new CommentDto(0, "user", "user@example.com", "body " + i)));
+        }
+        commentService.deleteComment(created.get(0).getId());
+
+        assertThat(storedCount()).isZero();
+        assertThat(summaryCount()).isEqualTo(2);
+
+        commentCounter.flush();
+        assertThat(storedCount()).isEqualTo(2);
+        assertThat(commentCounter.pending(post.getId())).isZero();
+        assertThat(summaryCount()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentCommentsAreAllCounted() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                futures.add(executor.submit(() -> commentService.createComment(post.getId(),
+                        new CommentDto(0, "user", "user@example.com", "concurrent"))));
+                if (i % 10 == 0) {
+                    futures.add(executor.submit(() -> commentCounter.flush()));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        commentCounter.flush();
+        assertThat(storedCount()).isEqualTo(40);
+    }
+
+    @Test
+    void rolledBackCommentsAreNotCounted() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            commentService.createComment(post.getId(), new CommentDto(0, "user", "user@example.com", "rolled back"));
+            assertThat(commentCounter.pending(post.getId())).isZero();
+            status.setRollbackOnly();
+        });
+        assertThat(commentCounter.pending(post.getId())).isZero();
+
+        commentService.createComment(post.getId(), new CommentDto(0, "user", "user@example.com", "committed"));
+        assertThat(commentCounter.pending(post.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void reconcileRepairsDrift() {
+        commentService.createComment(post.getId(), new CommentDto(0, "user", "user@example.com", "body"));
+        commentCounter.flush();
+        jdbcTemplate.update("update posts set comment_count = 17 where id = ?", post.getId());
+        // one unflushed comment must not be counted twice
+        commentService.createComment(post.getId(), new CommentDto(0, "user", "user@example.com", "body"));
+        commentCounter.decrement(post.getId());
+        commentCounter.increment(post.getId());
+
+        assertThat(postService.reconcileCommentCounts()).isEqualTo(1);
+        commentCounter.flush();
+        assertThat(storedCount()).isEqualTo(2);
+        assertThat(postService.reconcileCommentCounts()).isZero();
+    }
+
+    @Test
+    void failedFlushRetriesOnlyTheChunksNotWritten() {
+        // one post per chunk; the second chunk overflows comment_count and is rolled back
+        CommentCounter counter = new CommentCounter(jdbcTemplate, transactionManager, 1, false, new SimpleMeterRegistry());
+        Post overflowing = fixture.post("Overflowing");
+        jdbcTemplate.update("update posts set comment_count = ? where id = ?", Long.MIN_VALUE, overflowing.getId());
+        counter.increment(post.getId());
+        counter.increment(post.getId());
+        counter.decrement(overflowing.getId());
+
+        counter.flush();
+
+        assertThat(storedCount()).isEqualTo(2);
+        assertThat(counter.pending(post.getId())).isZero();
+        assertThat(counter.pending(overflowing.getId())).isEqualTo(-1);
+    }
+
+    private long storedCount() {
+        return jdbcTemplate.queryForObject("select comment_count from posts where id = ?", Long.class, post.getId());
+    }
+
+    private long summaryCount() {
+        return postService.getPostSummaries(0, 100, "id", "asc").stream()
+                .filter(summary -> summary.getId() == post.getId())
+                .mapToLong(PostSummaryDto::getCommentCount)
+                .findFirst().orElseThrow();
+    }
+}
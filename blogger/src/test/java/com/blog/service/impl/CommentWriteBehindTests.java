@@ -0,0 +1,173 @@
+package com.blog.service.impl;
+
+import com.blog.entity.Post;
+import com.blog.exception.BlogAPIException;
+import com.blog.payload.PostCommentDto;
+import com.blog.repository.CommentBatchRepository;
+import com.blog.repository.CommentRepository;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// POST /api/comments with write-behind on. The backpressure and shutdown tests run their own
+// CommentWriteBehind over a batch repository that blocks until released
+@BlogIntegrationTest(properties = {
+        "app.comments.write-behind.enabled=true",
+        "app.comments.counter.flush-interval-ms=3600000"
+})
+class CommentWriteBehindTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CommentCounter commentCounter;
+
+    @Autowired
+    private CommentBatchRepository commentBatchRepository;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        commentCounter.flush();
+        post = fixture.post("Live event");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    @WithMockUser
+    void commentsAreAcceptedAndWrittenBehind() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            mockMvc.perform(post("/api/comments?postId=" + post.getId()).contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"fan\",\"email\":\"fan@example.com\",\"body\":\"comment " + i + "\"}"))
+                    .andExpect(status().isAccepted());
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (commentRepository.countByPostId(post.getId()) < 20 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(commentRepository.countByPostId(post.getId())).isEqualTo(20);
+        assertThat(commentCounter.pending(post.getId())).isEqualTo(20);
+    }
+
+    @Test
+    @WithMockUser
+    void commentOnMissingPostIsRefusedBeforeQueueing() throws Exception {
+        mockMvc.perform(post("/api/comments?postId=" + (post.getId() + 1000)).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"fan\",\"email\":\"fan@example.com\",\"body\":\"lost\"}"))
+                .andExpect(status().is5xxServerError());
+    }
+
+    @Test
+    void failedBatchLeavesNoRowsBehind() {
+        // the second row breaks the foreign key after the first was sent, the retry must not find it committed
+        List<PostCommentDto> batch = List.of(
+                new PostCommentDto(post.getId(), 0, "fan", "fan@example.com", "kept"),
+                new PostCommentDto(post.getId() + 1000, 0, "fan", "fan@example.com", "orphan"));
+
+        assertThatThrownBy(() -> commentBatchRepository.insertAll(batch)).isInstanceOf(DataAccessException.class);
+        assertThat(commentRepository.countByPostId(post.getId())).isZero();
+    }
+
+    @Test
+    void fullQueueIsRefusedWith429() throws Exception {
+        BlockingBatchRepository repository = new BlockingBatchRepository();
+        CommentWriteBehind writeBehind = standalone(repository, 2);
+        writeBehind.start();
+        try {
+            writeBehind.submit(comment(1));
+            // the writer has taken the first comment and is stuck inserting it, two more fill the queue
+            repository.started.await();
+            writeBehind.submit(comment(2));
+            writeBehind.submit(comment(3));
+
+            assertThatThrownBy(() -> writeBehind.submit(comment(4)))
+                    .isInstanceOfSatisfying(BlogAPIException.class,
+                            ex -> assertThat(ex.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+        } finally {
+            repository.release.countDown();
+            writeBehind.stop();
+        }
+        assertThat(repository.written).extracting(PostCommentDto::getBody).containsExactly("comment 1", "comment 2", "comment 3");
+    }
+
+    @Test
+    void stopDrainsTheQueue() throws Exception {
+        BlockingBatchRepository repository = new BlockingBatchRepository();
+        CommentWriteBehind writeBehind = standalone(repository, 100);
+        writeBehind.start();
+        for (int i = 1; i <= 50; i++) {
+            writeBehind.submit(comment(i));
+        }
+        repository.release.countDown();
+        writeBehind.stop();
+
+        assertThat(repository.written).hasSize(50);
+        assertThatThrownBy(() -> writeBehind.submit(comment(51)))
+                .isInstanceOfSatisfying(BlogAPIException.class,
+                        ex -> assertThat(ex.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    private static CommentWriteBehind standalone(CommentBatchRepository repository, int queueCapacity) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new CommentWriteBehind(repository, new CommentCounter(null, null, 500, false, meterRegistry),
+                true, queueCapacity, 10, 10_000, meterRegistry);
+    }
+
+    private static PostCommentDto comment(int i) {
+        return new PostCommentDto(1, 0, "fan", "fan@example.com", "comment " + i);
+    }
+
+    // records the batches instead of inserting them, the first one waits for release
+    private static class BlockingBatchRepository extends CommentBatchRepository {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<PostCommentDto> written = new CopyOnWriteArrayList<>();
+
+        BlockingBatchRepository() {
+            super(null);
+        }
+
+        @Override
+        public void insertAll(List<PostCommentDto> comments) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.addAll(comments);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.blog.service.impl;
+
+import com.blog.entity.Comment;
+import com.blog.entity.Post;
+import com.blog.mapper.CommentMapper;
+import com.blog.mapper.CommentMapperImpl;
+import com.blog.mapper.PostMapper;
+import com.blog.mapper.PostMapperImpl;
+import com.blog.payload.CommentDto;
+import com.blog.payload.PostDto;
+import com.blog.testing.BlogFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// entity -> DTO mapping as done for every page of posts and comments: the generated mappers
+// (com.blog.mapper) against the hand-written copies they replaced, kept here as the baseline
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private PostMapper postMapper;
+    private CommentMapper commentMapper;
+    private List<Post> posts;
+    private List<Comment> comments;
+    private Slice<Post> postSlice;
+
+    @Setup
+    public void setUp() {
+        postMapper = new PostMapperImpl();
+        commentMapper = new CommentMapperImpl();
+
+        posts = new ArrayList<>(size);
+        comments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Post post = new Post();
+            post.setId(i);
+            post.setTitle("Post title " + i);
+            post.setDescription("A short description of post " + i);
+            post.setContent("Content of post " + i + " which is usually the longest field of the three");
+            posts.add(post);
+            Comment comment = BlogFixture.newComment(post, i);
+            comment.setId(i);
+            comments.add(comment);
+        }
+        postSlice = new SliceImpl<>(posts, PageRequest.of(0, size), false);
+    }
+
+    @Benchmark
+    public List<PostDto> mapPostsByHand() {
+        return posts.stream().map(MappingBenchmark::postToDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<PostDto> mapPostsGenerated() {
+        return postMapper.toDtos(posts);
+    }
+
+    @Benchmark
+    public List<PostDto> mapPostSliceGenerated() {
+        return postMapper.toDtos(postSlice);
+    }
+
+    @Benchmark
+    public List<CommentDto> mapCommentsByHand() {
+        return comments.stream().map(MappingBenchmark::commentToDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<CommentDto> mapCommentsGenerated() {
+        return commentMapper.toDtos(comments);
+    }
+
+    // the former PostServiceImpl.mapToDto
+    private static PostDto postToDto(Post post) {
+        PostDto dto = new PostDto();
+        dto.setId(post.getId());
+        dto.setTitle(post.getTitle());
+        dto.setDescription(post.getDescription());
+        dto.setContent(post.getContent());
+        dto.setVersion(post.getVersion());
+        dto.setUpdatedAt(post.getUpdatedAt());
+        return dto;
+    }
+
+    // the former CommentServiceImpl.mapTODto
+    private static CommentDto commentToDto(Comment comment) {
+        CommentDto dto = new CommentDto();
+        dto.setId(comment.getId());
+        dto.setName(comment.getName());
+        dto.setEmail(comment.getEmail());
+        dto.setBody(comment.getBody());
+        return dto;
+    }
+}
@@ -0,0 +1,128 @@
+package com.blog.service.impl;
+
+import com.blog.entity.Post;
+import com.blog.exception.BlogAPIException;
+import com.blog.mapper.CommentMapper;
+import com.blog.payload.CommentDto;
+import com.blog.repository.CommentRepository;
+import com.blog.repository.PostRepository;
+import com.blog.testing.BlogFixture;
+import com.blog.testing.BlogIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Background purge of a post racing with new comments. The purger under test runs over a comment repository
+// that, after the last chunk, tries to comment through the service and inserts one comment the way a
+// request that passed its check just before the purge would. And a purge lost to a restart, picked up again
+@BlogIntegrationTest
+class PostPurgerTests {
+
+    @Autowired
+    private BlogFixture fixture;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CommentCounter commentCounter;
+
+    @Autowired
+    private CommentWriteBehind commentWriteBehind;
+
+    @Autowired
+    private CommentMapper commentMapper;
+
+    @AfterEach
+    void tearDown() {
+        fixture.clear();
+    }
+
+    @Test
+    void commentsArrivingDuringThePurgeDoNotKeepThePostAlive() throws Exception {
+        Post post = fixture.post("Purged");
+        fixture.comments(post, 5);
+
+        AtomicBoolean lateCommentAdded = new AtomicBoolean();
+        AtomicReference<HttpStatus> refused = new AtomicReference<>();
+        AtomicReference<PostPurger> purger = new AtomicReference<>();
+        CommentRepository racing = (CommentRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{CommentRepository.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(commentRepository, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                    // after the last chunk, so only another round removes it
+                    if (method.getName().equals("deleteChunkByPostId") && (Integer) result < 2
+                            && lateCommentAdded.compareAndSet(false, true)) {
+                        CommentServiceImpl commentService = new CommentServiceImpl(postRepository, commentRepository,
+                                commentCounter, commentWriteBehind, commentMapper, purger.get(), 100, 60);
+                        try {
+                            commentService.createComment(post.getId(), new CommentDto(0, "late", "late@example.com", "late"));
+                        } catch (BlogAPIException ex) {
+                            refused.set(ex.getStatus());
+                        }
+                        fixture.comments(post, 5, 1);
+                    }
+                    return result;
+                });
+        purger.set(new PostPurger(postRepository, racing, transactionManager, cacheManager, 2, new SimpleMeterRegistry()));
+
+        purger.get().schedule(post.getId());
+        awaitPurge(purger.get(), post);
+
+        assertThat(refused.get()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(lateCommentAdded).isTrue();
+        assertThat(postRepository.existsById(post.getId())).isFalse();
+        assertThat(commentRepository.countByPostId(post.getId())).isZero();
+    }
+
+    @Test
+    void markedPostIsHiddenAndItsPurgeResumedAtStartup() throws Exception {
+        Post post = fixture.post("Interrupted");
+        fixture.comments(post, 5);
+        // DELETE answered 202 and the app stopped before the purge ran
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> postRepository.markDeleting(post.getId()));
+        assertThat(postRepository.findById(post.getId())).isEmpty();
+        assertThat(postRepository.findAll()).doesNotContain(post);
+
+        PostPurger restarted = new PostPurger(postRepository, commentRepository, transactionManager, cacheManager, 2,
+                new SimpleMeterRegistry());
+        restarted.resume();
+        awaitPurge(restarted, post);
+
+        assertThat(postRepository.findDeletingIds()).isEmpty();
+        assertThat(commentRepository.countByPostId(post.getId())).isZero();
+    }
+
+    private void awaitPurge(PostPurger purger, Post post) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (purger.isPending(post.getId()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        purger.destroy();
+    }
+}
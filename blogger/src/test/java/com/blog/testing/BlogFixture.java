@@ -0,0 +1,106 @@
+package com.blog.testing;
+
+import com.blog.entity.Comment;
+import com.blog.entity.Post;
+import com.blog.entity.Role;
+import com.blog.entity.User;
+import com.blog.repository.CommentRepository;
+import com.blog.repository.PostRepository;
+import com.blog.repository.RoleRepository;
+import com.blog.repository.UserRepository;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+// Saved posts, comments and users for the @BlogIntegrationTest classes. Entities are built with setters, so a new
+// column only has to be added here, not to every test
+@TestComponent
+public class BlogFixture {
+
+    private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private UserRepository userRepository;
+    private RoleRepository roleRepository;
+    private CacheManager cacheManager;
+
+    public BlogFixture(PostRepository postRepository, CommentRepository commentRepository,
+                       UserRepository userRepository, RoleRepository roleRepository, CacheManager cacheManager) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    // "X" gets description "X post" and content "X content"
+    public Post post(String title) {
+        return post(title, title + " content");
+    }
+
+    public Post post(String title, String content) {
+        return postRepository.save(newPost(title, content));
+    }
+
+    // comments "body i" by "user i", numbered from first
+    public List<Comment> comments(Post post, int first, int count) {
+        List<Comment> comments = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            comments.add(commentRepository.save(newComment(post, i)));
+        }
+        return comments;
+    }
+
+    public List<Comment> comments(Post post, int count) {
+        return comments(post, 0, count);
+    }
+
+    // "x" with email "x@example.com" and password "password", roles like "ROLE_ADMIN" are created when missing
+    public User user(String username, String... roleNames) {
+        User user = new User();
+        user.setName(username);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("password");
+        user.setRoles(new HashSet<>());
+        for (String roleName : roleNames) {
+            user.getRoles().add(role(roleName));
+        }
+        return userRepository.save(user);
+    }
+
+    public Role role(String name) {
+        return roleRepository.findByName(name).orElseGet(() -> {
+            Role role = new Role();
+            role.setName(name);
+            return roleRepository.save(role);
+        });
+    }
+
+    // every post, comment and user, and the caches that may still hold them
+    public void clear() {
+        commentRepository.deleteAll();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    public static Post newPost(String title, String content) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setDescription(title + " post");
+        post.setContent(content);
+        return post;
+    }
+
+    public static Comment newComment(Post post, int i) {
+        Comment comment = new Comment();
+        comment.setBody("body " + i);
+        comment.setEmail("user" + i + "@example.com");
+        comment.setName("user " + i);
+        comment.setPost(post);
+        return comment;
+    }
+}
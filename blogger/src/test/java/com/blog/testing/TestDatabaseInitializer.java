@@ -0,0 +1,22 @@
+package com.blog.testing;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Names the in-memory database of each test context (app.h2.database in application-h2.properties).
+// Contexts stay cached with their schedulers and pools running, so on one shared database a context
+// started later would drop and recreate the tables under them
+public class TestDatabaseInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static final AtomicInteger CONTEXTS = new AtomicInteger();
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("testDatabase",
+                Map.of("app.h2.database", "blog_" + CONTEXTS.incrementAndGet())));
+    }
+}